@@ -42,6 +42,9 @@ public class AccusationDialog extends Window {
         super("Make your accusation ", ClueMain.skin.get("dialog", Window.WindowStyle.class));
         this.screen = screen;
 
+        Rules rules = screen.getGame().getRules();
+        NotebookView notes = player.getNotebook();
+
         setSkin(ClueMain.skin);
         setModal(true);
         defaults().pad(5);
@@ -70,9 +73,9 @@ public class AccusationDialog extends Window {
 
         table.add(new Label("Pick the Suspect", ClueMain.skin, "default-yellow"));
         table.row();
-        for (int i = 0; i < NUM_SUSPECTS; i++) {
-            Card card = new Card(TYPE_SUSPECT, i);
-            CardCheckBox cb = new CardCheckBox(card, player.isCardInHand(card), player.getNotebook().isCardToggled(card));
+        for (int i = 0; i < rules.count(TYPE_SUSPECT); i++) {
+            Card card = rules.card(TYPE_SUSPECT, i);
+            CardCheckBox cb = new CardCheckBox(card, player.isCardInHand(card), notes.isCardToggled(card));
             checkBoxes.add(cb);
             buttonGroup1.add(cb);
             table.add(cb);
@@ -87,9 +90,9 @@ public class AccusationDialog extends Window {
 
         table.add(new Label("Pick the Weapon", ClueMain.skin, "default-yellow"));
         table.row();
-        for (int i = 0; i < NUM_WEAPONS; i++) {
-            Card card = new Card(TYPE_WEAPON, i);
-            CardCheckBox cb = new CardCheckBox(card, player.isCardInHand(card), player.getNotebook().isCardToggled(card));
+        for (int i = 0; i < rules.count(TYPE_WEAPON); i++) {
+            Card card = rules.card(TYPE_WEAPON, i);
+            CardCheckBox cb = new CardCheckBox(card, player.isCardInHand(card), notes.isCardToggled(card));
             checkBoxes.add(cb);
             buttonGroup2.add(cb);
             table.add(cb);
@@ -104,9 +107,9 @@ public class AccusationDialog extends Window {
         
         table.add(new Label("Pick the Location", ClueMain.skin, "default-yellow"));
         table.row();
-        for (int i = 0; i < NUM_ROOMS; i++) {
-            Card card = new Card(TYPE_ROOM, i);
-            CardCheckBox cb = new CardCheckBox(card, player.isCardInHand(card), player.getNotebook().isCardToggled(card));
+        for (int i = 0; i < rules.count(TYPE_ROOM); i++) {
+            Card card = rules.card(TYPE_ROOM, i);
+            CardCheckBox cb = new CardCheckBox(card, player.isCardInHand(card), notes.isCardToggled(card));
             checkBoxes.add(cb);
             buttonGroup3.add(cb);
             table.add(cb);
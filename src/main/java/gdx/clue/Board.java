@@ -0,0 +1,290 @@
+package gdx.clue;
+
+import gdx.clue.astar.Location;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringTokenizer;
+
+/**
+ * Immutable board topology. The tiles and their neighbor links never change
+ * once built, so a single instance is shared by every game in the process
+ * and read from any thread. Anything that changes during a game lives in
+ * {@link ClueMap}.
+ */
+public class Board {
+
+    public static final Board CLASSIC = new Board(
+            "xxxxxxxxxoxxxoxxxxxxxxxx\n"
+            + "xxxxxxxoooxxxoooxxxxxxxx\n"
+            + "xxxxxxooxxxxxxxooxxxxxxx\n"
+            + "xxxxxxooxxxxxxxooxxxxxxx\n"
+            + "xxxxxxooxxxxxxxooo5xxxxx\n"
+            + "xxxxxxoo4xxxxx4ooooooooo\n"
+            + "xxxx3xooxxxxxxxoooooooox\n"
+            + "oooooooox4xxx4xoooxxxxxx\n"
+            + "xooooooooooooooooo6xxxxx\n"
+            + "xxxxxoooooooooooooxxxxxx\n"
+            + "xxxxxxxxooxxxxxoooxxxxxx\n"
+            + "xxxxxxxxooxxxxxoooxxxx6x\n"
+            + "xxxxxxx2ooxxxxxoooooooox\n"
+            + "xxxxxxxxooxxxxxoooxx8xxx\n"
+            + "xxxxxxxxooxxxxxooxxxxxxx\n"
+            + "xxxxxx2xooxxxxxoo8xxxxxx\n"
+            + "xoooooooooxxxxxooxxxxxxx\n"
+            + "ooooooooooooooooooxxxxxx\n"
+            + "xooooooooxx00xxooooooooo\n"
+            + "xxxxxx1ooxxxxxxoooooooox\n"
+            + "xxxxxxxooxxxxx0oo7xxxxxx\n"
+            + "xxxxxxxooxxxxxxooxxxxxxx\n"
+            + "xxxxxxxooxxxxxxooxxxxxxx\n"
+            + "xxxxxxxooxxxxxxooxxxxxxx\n"
+            + "xxxxxxxoxxxxxxxxoxxxxxxx",
+            new int[][]{{Card.ROOM_KITCHEN, Card.ROOM_STUDY}, {Card.ROOM_CONSERVATORY, Card.ROOM_LOUNGE}},
+            new int[][]{{7, 24}, {9, 0}, {23, 18}, {0, 17}, {13, 0}, {23, 5}});
+
+    private final Location[][] nodes;
+    private final int hbound;
+    private final int vbound;
+    private final List<Location> locations;
+    private final Location[][] doors;
+    private final int[] passages;
+    //start square of each suspect by id
+    private final Location[] starts;
+
+    //walking steps from every tile to the nearest door of each room
+    private final int[][] steps;
+
+    private Board(String template, int[][] passagePairs, int[][] startSquares) {
+
+        StringTokenizer tokens = new StringTokenizer(template, "\n");
+        vbound = tokens.countTokens();
+        hbound = tokens.nextToken().length();
+
+        nodes = new Location[hbound][vbound];
+        for (int i = 0; i < hbound; i++) {
+            for (int j = 0; j < vbound; j++) {
+                nodes[i][j] = new Location(i, j);
+            }
+        }
+
+        tokens = new StringTokenizer(template, "\n");
+        int y = 0;
+        int maxRoomId = -1;
+
+        while (tokens.hasMoreTokens()) {
+            char[] array = tokens.nextToken().toCharArray();
+            for (int x = 0; x < array.length; x++) {
+                Location t = nodes[x][y];
+                if (array[x] == 'x') {
+                    t.setBlocked(true);
+                }
+                if (Character.isDigit(array[x])) {
+                    int room_id = array[x] - '0';
+                    t.setIsRoom(true);
+                    t.setRoomId(room_id);
+                    maxRoomId = Math.max(maxRoomId, room_id);
+                }
+            }
+            y++;
+        }
+
+        attachNeighbors();
+
+        //fix 2 doors which need neighbor removals
+        nodes[18][5].removeNeighbor(nodes[18][6]);
+        nodes[18][6].removeNeighbor(nodes[18][5]);
+
+        nodes[17][21].removeNeighbor(nodes[16][21]);
+        nodes[16][21].removeNeighbor(nodes[17][21]);
+
+        List<Location> all = new ArrayList<>(hbound * vbound);
+        for (int i = 0; i < hbound; i++) {
+            for (int j = 0; j < vbound; j++) {
+                nodes[i][j].lock();
+                all.add(nodes[i][j]);
+            }
+        }
+        locations = Collections.unmodifiableList(all);
+
+        doors = new Location[maxRoomId + 1][];
+        for (int id = 0; id <= maxRoomId; id++) {
+            List<Location> roomDoors = new ArrayList<>();
+            for (Location l : all) {
+                if (l.getRoomId() == id) {
+                    roomDoors.add(l);
+                }
+            }
+            doors[id] = roomDoors.toArray(new Location[roomDoors.size()]);
+        }
+
+        passages = new int[doors.length];
+        Arrays.fill(passages, -1);
+        for (int[] pair : passagePairs) {
+            passages[pair[0]] = pair[1];
+            passages[pair[1]] = pair[0];
+        }
+
+        starts = new Location[startSquares.length];
+        for (int i = 0; i < startSquares.length; i++) {
+            starts[i] = nodes[startSquares[i][0]][startSquares[i][1]];
+        }
+
+        steps = new int[doors.length][];
+        for (int id = 0; id < doors.length; id++) {
+            steps[id] = stepsFrom(doors[id]);
+        }
+    }
+
+    /**
+     * Breadth first walking distance from the nearest of the start tiles,
+     * {@link Integer#MAX_VALUE} where unreachable.
+     */
+    private int[] stepsFrom(Location[] starts) {
+        int[] dist = new int[getTileCount()];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        int[] queue = new int[dist.length];
+        int head = 0;
+        int tail = 0;
+        for (Location start : starts) {
+            dist[index(start)] = 0;
+            queue[tail++] = index(start);
+        }
+        while (head < tail) {
+            int i = queue[head++];
+            for (Location n : locations.get(i).neighbors()) {
+                int j = index(n);
+                if (dist[j] == Integer.MAX_VALUE) {
+                    dist[j] = dist[i] + 1;
+                    queue[tail++] = j;
+                }
+            }
+        }
+        return dist;
+    }
+
+    public Location getLocation(int x, int y) {
+        if (x < 0 || x >= hbound) {
+            return null;
+        }
+        if (y < 0 || y >= vbound) {
+            return null;
+        }
+        return nodes[x][y];
+    }
+
+    public int getXSize() {
+        return hbound;
+    }
+
+    public int getYSize() {
+        return vbound;
+    }
+
+    public int getTileCount() {
+        return hbound * vbound;
+    }
+
+    /**
+     * Dense index of a tile, in the same order as {@link #getLocations()}.
+     */
+    public int index(Location location) {
+        return location.getX() * vbound + location.getY();
+    }
+
+    public Location getLocation(int index) {
+        return locations.get(index);
+    }
+
+    public Collection<Location> getLocations() {
+        return locations;
+    }
+
+    public int getRoomCount() {
+        return doors.length;
+    }
+
+    public Location getRoomLocation(int room_id) {
+        Location[] roomDoors = doors[room_id];
+        return roomDoors[roomDoors.length - 1];
+    }
+
+    public List<Location> getAllRoomLocations() {
+        ArrayList<Location> rooms = new ArrayList<>();
+        for (Location[] roomDoors : doors) {
+            rooms.addAll(Arrays.asList(roomDoors));
+        }
+        return rooms;
+    }
+
+    /**
+     * The room at the other end of the secret passage, -1 if there is none.
+     */
+    public int getPassage(int roomId) {
+        return passages[roomId];
+    }
+
+    /**
+     * The square the suspect starts the game on.
+     */
+    public Location getStart(int suspectId) {
+        return starts[suspectId];
+    }
+
+    public int getStartCount() {
+        return starts.length;
+    }
+
+    /**
+     * Walking steps from the tile to the nearest door of the room.
+     */
+    public int getSteps(int tileIndex, int roomId) {
+        return steps[roomId][tileIndex];
+    }
+
+    /**
+     * Walking steps between the nearest doors of two rooms.
+     */
+    public int getRoomSteps(int fromRoom, int toRoom) {
+        int best = Integer.MAX_VALUE;
+        for (Location door : doors[fromRoom]) {
+            best = Math.min(best, steps[toRoom][index(door)]);
+        }
+        return best;
+    }
+
+    public List<Location> getAllDoorLocationsForRoom(int roomId) {
+        if (roomId == -1) {
+            return null;
+        }
+        return Arrays.asList(doors[roomId]);
+    }
+
+    private void attachNeighbors() {
+        for (int i = 0; i < nodes.length; i++) {
+            for (int j = 0; j < nodes[0].length; j++) {
+                Location t = nodes[i][j];
+
+                if (i != 0) {
+                    t.addNeighbor(nodes[i - 1][j]);
+                }
+
+                if (i != nodes.length - 1) {
+                    t.addNeighbor(nodes[i + 1][j]);
+                }
+
+                if (j != 0) {
+                    t.addNeighbor(nodes[i][j - 1]);
+                }
+
+                if (j != nodes[0].length - 1) {
+                    t.addNeighbor(nodes[i][j + 1]);
+                }
+            }
+
+        }
+    }
+
+}
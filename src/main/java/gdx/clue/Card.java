@@ -1,16 +1,17 @@
 package gdx.clue;
 
-import gdx.clue.ClueMain.Suspect;
-
+/**
+ * A card of a {@link Rules} variant. Cards are canonical, the variant holds
+ * exactly one instance per card, so equality is identity. The static lookups
+ * refer to the classic game the board is built for.
+ */
 public class Card {
 
-    private int type;
-    private int value;
-
-    public static final int NUM_SUSPECTS = 6;
-    public static final int NUM_ROOMS = 9;
-    public static final int NUM_WEAPONS = 6;
-    public static final int TOTAL = NUM_ROOMS + NUM_SUSPECTS + NUM_WEAPONS;
+    private final Rules rules;
+    private final int type;
+    private final int value;
+    private final int ordinal;
+    private final String name;
 
     public static final int TYPE_SUSPECT = 0;
     public static final int TYPE_WEAPON = 1;
@@ -33,9 +34,39 @@ public class Card {
     public static final int WEAPON_PIPE = 4;
     public static final int WEAPON_CANDLE = 5;
 
-    public Card(int type, int value) {
+    Card(Rules rules, int type, int value, int ordinal, String name) {
+        this.rules = rules;
         this.type = type;
         this.value = value;
+        this.ordinal = ordinal;
+        this.name = name;
+    }
+
+    /**
+     * Returns the canonical classic card, no new instances are ever created.
+     */
+    public static Card of(int type, int value) {
+        return Rules.CLASSIC.card(type, value);
+    }
+
+    public static Card fromOrdinal(int ordinal) {
+        return Rules.CLASSIC.card(ordinal);
+    }
+
+    public static int ordinal(int type, int value) {
+        return Rules.CLASSIC.ordinal(type, value);
+    }
+
+    public static int firstOrdinal(int type) {
+        return Rules.CLASSIC.firstOrdinal(type);
+    }
+
+    public static int count(int type) {
+        return Rules.CLASSIC.count(type);
+    }
+
+    public Rules getRules() {
+        return rules;
     }
 
     public int getType() {
@@ -46,86 +77,26 @@ public class Card {
         return value;
     }
 
+    /**
+     * Dense index of the card within its rules, from 0 to total - 1.
+     */
+    public int ordinal() {
+        return ordinal;
+    }
+
     @Override
     public int hashCode() {
-        return type + value;
+        return ordinal;
     }
 
     @Override
     public boolean equals(Object obj) {
-        if (obj instanceof Card) {
-            Card c = (Card) obj;
-            return (c.type == this.type && c.value == this.value);
-        } else {
-            return false;
-        }
+        return this == obj;
     }
 
     @Override
     public String toString() {
-        String desc = null;
-
-        switch (type) {
-            case TYPE_SUSPECT:
-                desc = Suspect.values()[value].title();
-                break;
-            case TYPE_ROOM:
-                switch (value) {
-                    case ROOM_HALL:
-                        desc = "Hall";
-                        break;
-                    case ROOM_LOUNGE:
-                        desc = "Lounge";
-                        break;
-                    case ROOM_DINING:
-                        desc = "Dining Room";
-                        break;
-                    case ROOM_KITCHEN:
-                        desc = "Kitchen";
-                        break;
-                    case ROOM_BALLROOM:
-                        desc = "Ballroom";
-                        break;
-                    case ROOM_CONSERVATORY:
-                        desc = "Conservatory";
-                        break;
-                    case ROOM_BILLIARD:
-                        desc = "Billiard Room";
-                        break;
-                    case ROOM_STUDY:
-                        desc = "Study";
-                        break;
-                    case ROOM_LIBRARY:
-                        desc = "Library";
-                        break;
-                }
-                break;
-            case TYPE_WEAPON:
-                switch (value) {
-                    case WEAPON_KNIFE:
-                        desc = "Knife";
-                        break;
-                    case WEAPON_ROPE:
-                        desc = "Rope";
-                        break;
-                    case WEAPON_REVOLVER:
-                        desc = "Revolver";
-                        break;
-                    case WEAPON_WRENCH:
-                        desc = "Wrench";
-                        break;
-                    case WEAPON_PIPE:
-                        desc = "Pipe";
-                        break;
-                    case WEAPON_CANDLE:
-                        desc = "Candlestick";
-                        break;
-                }
-                break;
-        }
-
-        return desc;
-
+        return name;
     }
 
 }
@@ -0,0 +1,191 @@
+package gdx.clue;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set of cards stored as a bitmask over the card ordinals. Used
+ * for hands, suggestions, the envelope and notebook marks so that
+ * membership and overlap tests are single bit operations. The factory
+ * methods without a {@link Rules} argument refer to the classic game.
+ */
+public final class CardSet implements Iterable<Card> {
+
+    public static final CardSet EMPTY = new CardSet(Rules.CLASSIC, 0L);
+
+    private final Rules rules;
+    private final long bits;
+
+    private CardSet(Rules rules, long bits) {
+        this.rules = rules;
+        this.bits = bits;
+    }
+
+    public static CardSet fromBits(long bits) {
+        return fromBits(Rules.CLASSIC, bits);
+    }
+
+    public static CardSet fromBits(Rules rules, long bits) {
+        return bits == 0L && rules == Rules.CLASSIC ? EMPTY : new CardSet(rules, bits);
+    }
+
+    public static CardSet of(Card... cards) {
+        long b = 0L;
+        for (Card card : cards) {
+            b |= bit(card);
+        }
+        return fromBits(cards.length > 0 ? cards[0].getRules() : Rules.CLASSIC, b);
+    }
+
+    public static CardSet of(Collection<Card> cards) {
+        long b = 0L;
+        Rules rules = Rules.CLASSIC;
+        for (Card card : cards) {
+            b |= bit(card);
+            rules = card.getRules();
+        }
+        return fromBits(rules, b);
+    }
+
+    /**
+     * All the cards of the given type.
+     */
+    public static CardSet ofType(int type) {
+        return ofType(Rules.CLASSIC, type);
+    }
+
+    public static CardSet ofType(Rules rules, int type) {
+        return fromBits(rules, rules.typeBits(type));
+    }
+
+    public static long bit(Card card) {
+        return 1L << card.ordinal();
+    }
+
+    public static long typeBits(int type) {
+        return Rules.CLASSIC.typeBits(type);
+    }
+
+    /**
+     * The n-th lowest set bit of the mask, 0 if there are not that many.
+     */
+    public static long nthBit(long bits, int n) {
+        for (int i = 0; i < n; i++) {
+            bits &= bits - 1;
+        }
+        return bits & -bits;
+    }
+
+    public Rules getRules() {
+        return rules;
+    }
+
+    public long bits() {
+        return bits;
+    }
+
+    public boolean contains(Card card) {
+        return (bits & bit(card)) != 0L;
+    }
+
+    public boolean containsAll(CardSet other) {
+        return (bits & other.bits) == other.bits;
+    }
+
+    public boolean intersects(CardSet other) {
+        return (bits & other.bits) != 0L;
+    }
+
+    public CardSet with(Card card) {
+        return fromBits(rules, bits | bit(card));
+    }
+
+    public CardSet without(Card card) {
+        return fromBits(rules, bits & ~bit(card));
+    }
+
+    public CardSet and(CardSet other) {
+        return fromBits(rules, bits & other.bits);
+    }
+
+    public CardSet or(CardSet other) {
+        return fromBits(rules, bits | other.bits);
+    }
+
+    public CardSet minus(CardSet other) {
+        return fromBits(rules, bits & ~other.bits);
+    }
+
+    public CardSet ofTypeOnly(int type) {
+        return fromBits(rules, bits & rules.typeBits(type));
+    }
+
+    public boolean isEmpty() {
+        return bits == 0L;
+    }
+
+    public int size() {
+        return Long.bitCount(bits);
+    }
+
+    /**
+     * Returns the n-th card of this set in ordinal order.
+     */
+    public Card get(int n) {
+        long b = nthBit(bits, n);
+        if (b == 0L) {
+            throw new IndexOutOfBoundsException("index: " + n + " size: " + size());
+        }
+        return rules.card(Long.numberOfTrailingZeros(b));
+    }
+
+    @Override
+    public Iterator<Card> iterator() {
+        return new Iterator<Card>() {
+            long remaining = bits;
+
+            @Override
+            public boolean hasNext() {
+                return remaining != 0L;
+            }
+
+            @Override
+            public Card next() {
+                if (remaining == 0L) {
+                    throw new NoSuchElementException();
+                }
+                int ordinal = Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+                return rules.card(ordinal);
+            }
+        };
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(bits);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof CardSet) {
+            CardSet other = (CardSet) obj;
+            return other.bits == bits && other.rules == rules;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (Card card : this) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(card);
+        }
+        return sb.append("]").toString();
+    }
+
+}
@@ -1,62 +1,168 @@
 package gdx.clue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import static gdx.clue.Card.*;
 import gdx.clue.ClueMain.Suspect;
-import java.util.Random;
 
 public class Clue {
 
+    private final Rules rules;
     private final List<Player> players = new ArrayList<>(6);
-    private final List<Card> shuffled = new ArrayList<>(TOTAL);
-    private final List<Card> victimSet = new ArrayList<>(3);
+
+    //seating ring in turn order
+    private final Player[] seats;
+    private final int[] nextSeats;
+    private final int[] seatsBySuspect;
+    private final Map<String, Player> playersByName = new HashMap<>();
+    private final int[] deck;
+    private final long[] hands;
+    private final int[] holders;
+    private CardSet victimSet = CardSet.EMPTY;
+    private final GameRandom random;
+    private final SuggestionHistory history = new SuggestionHistory();
+
+    public Clue(GameRandom random) {
+        this(Rules.CLASSIC, random);
+    }
+
+    public Clue(Rules rules, GameRandom random) {
+        this.rules = rules;
+        this.random = random;
+        this.seats = new Player[rules.getMaxPlayers()];
+        this.nextSeats = new int[rules.getMaxPlayers()];
+        this.hands = new long[rules.getMaxPlayers()];
+        this.seatsBySuspect = new int[rules.count(TYPE_SUSPECT)];
+        this.deck = new int[rules.total()];
+        this.holders = new int[rules.total()];
+        Arrays.fill(seatsBySuspect, -1);
+    }
+
+    public Rules getRules() {
+        return rules;
+    }
+
+    public GameRandom getRandom() {
+        return random;
+    }
+
+    public SuggestionHistory getHistory() {
+        return history;
+    }
 
     public void createDeck() {
+        victimSet = CardSet.fromBits(rules, shuffle(rules, random, deck));
+        history.clear();
+    }
 
-        ArrayList<Card> deck = new ArrayList<>(TOTAL);
+    /**
+     * Picks the victim set and shuffles the remaining card ordinals in place
+     * with Fisher-Yates. Nothing is allocated, so bulk simulations can call
+     * this once per game with the same array.
+     *
+     * @param deck receives the {@link Rules#dealt()} remaining ordinals, in
+     * dealing order
+     * @return the victim set bits
+     */
+    public static long shuffle(Rules rules, GameRandom random, int[] deck) {
 
-        //create deck
-        for (int i = 0; i < NUM_ROOMS; i++) {
-            deck.add(new Card(TYPE_ROOM, i));
-        }
-        for (int i = 0; i < NUM_SUSPECTS; i++) {
-            deck.add(new Card(TYPE_SUSPECT, i));
-        }
-        for (int i = 0; i < NUM_WEAPONS; i++) {
-            deck.add(new Card(TYPE_WEAPON, i));
+        //pull the victim set
+        int s = rules.ordinal(TYPE_SUSPECT, random.nextInt(rules.count(TYPE_SUSPECT)));
+        int w = rules.ordinal(TYPE_WEAPON, random.nextInt(rules.count(TYPE_WEAPON)));
+        int r = rules.ordinal(TYPE_ROOM, random.nextInt(rules.count(TYPE_ROOM)));
+
+        int n = 0;
+        for (int i = 0; i < rules.total(); i++) {
+            if (i != s && i != w && i != r) {
+                deck[n++] = i;
+            }
         }
 
         // shuffle it
-        Random rand = new Random();
-        for (int i = 0; i < TOTAL; i++) {
-            int r = rand.nextInt(deck.size());
-            Card c = deck.remove(r);
-            shuffled.add(c);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = deck[i];
+            deck[i] = deck[j];
+            deck[j] = t;
         }
 
-        //pull the victim set
-        int w = rand.nextInt(NUM_WEAPONS);
-        int r = rand.nextInt(NUM_ROOMS);
-        int s = rand.nextInt(NUM_SUSPECTS);
-
-        Card weapon = new Card(TYPE_WEAPON, w);
-        Card suspect = new Card(TYPE_SUSPECT, s);
-        Card room = new Card(TYPE_ROOM, r);
+        return (1L << s) | (1L << w) | (1L << r);
+    }
 
-        shuffled.remove(weapon);
-        shuffled.remove(suspect);
-        shuffled.remove(room);
+    /**
+     * Deals the shuffled ordinals round robin into one hand mask per seat.
+     */
+    public static void deal(Rules rules, int[] deck, long[] hands, int playerCount) {
+        deal(rules, deck, hands, null, playerCount);
+    }
 
-        victimSet.add(weapon);
-        victimSet.add(suspect);
-        victimSet.add(room);
+    /**
+     * Deals the shuffled ordinals round robin into one hand mask per seat,
+     * and records the seat holding each card ordinal, -1 for the envelope.
+     */
+    public static void deal(Rules rules, int[] deck, long[] hands, int[] holders, int playerCount) {
+        for (int p = 0; p < playerCount; p++) {
+            hands[p] = 0L;
+        }
+        if (holders != null) {
+            Arrays.fill(holders, 0, rules.total(), -1);
+        }
+        int player_index = 0;
+        for (int i = 0; i < rules.dealt(); i++) {
+            hands[player_index] |= 1L << deck[i];
+            if (holders != null) {
+                holders[deck[i]] = player_index;
+            }
+            if (++player_index == playerCount) {
+                player_index = 0;
+            }
+        }
+    }
 
+    /**
+     * Returns the first seat after the suggesting seat, in turn order, that
+     * holds one of the suggested cards, or -1 if nobody can disprove. Only
+     * the three holders are looked at.
+     */
+    public static int disprovingSeat(int[] holders, long suggestion, int suggestingSeat, int playerCount) {
+        int best = -1;
+        int bestDistance = playerCount;
+        for (long b = suggestion; b != 0L; b &= b - 1) {
+            int holder = holders[Long.numberOfTrailingZeros(b)];
+            if (holder == -1 || holder == suggestingSeat) {
+                continue;
+            }
+            int distance = holder - suggestingSeat;
+            if (distance < 0) {
+                distance += playerCount;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = holder;
+            }
+        }
+        return best;
     }
 
     public Player addPlayer(Card p, String name, Suspect suspect, boolean computer) {
         Player player = new Player(p, name, suspect, computer);
+        int seat = players.size();
+        player.setSeat(seat);
         players.add(player);
+
+        seats[seat] = player;
+        seatsBySuspect[suspect.id()] = seat;
+        playersByName.put(name, player);
+
+        //close the ring back to the first seat
+        if (seat > 0) {
+            nextSeats[seat - 1] = seat;
+        }
+        nextSeats[seat] = 0;
+
         return player;
     }
 
@@ -65,7 +171,7 @@ public class Clue {
     }
 
     public boolean containsSuspect(Card card) {
-        return players.contains(card);
+        return card.getType() == TYPE_SUSPECT && seatsBySuspect[card.getValue()] != -1;
     }
 
     public List<Player> getPlayers() {
@@ -73,84 +179,75 @@ public class Clue {
     }
 
     public Player getPlayer(int id) {
-        Player player = null;
-        for (Player p : players) {
-            if (p.getSuspect().id() == id) {
-                player = p;
-            }
-        }
-        return player;
+        int seat = seatsBySuspect[id];
+        return seat == -1 ? null : seats[seat];
     }
 
     public Player getPlayer(String name) {
-        Player player = null;
-        for (Player p : players) {
-            if (p.getPlayerName().equals(name)) {
-                player = p;
-            }
-        }
-        return player;
+        return playersByName.get(name);
+    }
+
+    public Player getPlayerAtSeat(int seat) {
+        return seats[seat];
+    }
+
+    /**
+     * The seat to the left of the given one, who plays next and who is
+     * asked next to disprove a suggestion.
+     */
+    public int nextSeat(int seat) {
+        return nextSeats[seat];
+    }
+
+    public Player getNextPlayer(Player player) {
+        return seats[nextSeats[player.getSeat()]];
     }
 
     public void dealShuffledDeck() {
-        //deal the cards
-        int player_index = 0;
-        for (int i = 0; i < shuffled.size(); i++) {
-            Card card = shuffled.get(i);
-            if (player_index == players.size()) {
-                player_index = 0;
-            }
-            Player player = players.get(player_index);
-            player.addCard(card);
-            player_index++;
+        deal(rules, deck, hands, holders, players.size());
+        for (int i = 0; i < players.size(); i++) {
+            players.get(i).setCardsInHand(CardSet.fromBits(rules, hands[i]));
         }
     }
 
+    /**
+     * The seat holding the card, or -1 when the card is in the envelope.
+     */
+    public int getHolderSeat(Card card) {
+        return holders[card.ordinal()];
+    }
+
+    public int getDisprovingSeat(Player suggestingPlayer, CardSet suggestion) {
+        return disprovingSeat(holders, suggestion.bits(), suggestingPlayer.getSeat(), players.size());
+    }
+
     public String getAdjacentPlayerName(String name) {
-        String adjPlayerName = null;
-        for (int i = 0; i < players.size(); i++) {
-            Player p = players.get(i);
-            if (p.getPlayerName().equals(name)) {
-                int next = i + 1;
-                if (next == players.size()) {
-                    next = 0;
-                }
-                adjPlayerName = players.get(next).getPlayerName();
-                break;
-            }
-        }
-        return adjPlayerName;
+        Player player = playersByName.get(name);
+        return player == null ? null : getNextPlayer(player).getPlayerName();
     }
 
-    public List<Card> getShuffledDeck() {
-        return shuffled;
+    public CardSet getShuffledDeck() {
+        return CardSet.fromBits(rules, ~victimSet.bits() & rules.allBits());
+    }
+
+    public CardSet getVictimSet() {
+        return victimSet;
     }
 
     public boolean matchesVictimSet(List<Card> accusation) {
-        Card weapon = null, suspect = null, room = null;
-        for (Card card : accusation) {
-            if (card.getType() == TYPE_WEAPON) {
-                weapon = card;
-            }
-            if (card.getType() == TYPE_ROOM) {
-                room = card;
-            }
-            if (card.getType() == TYPE_SUSPECT) {
-                suspect = card;
-            }
-        }
-        return matchesVictimSet(weapon, suspect, room);
+        return matchesVictimSet(CardSet.of(accusation));
+    }
+
+    public boolean matchesVictimSet(CardSet accusation) {
+        return victimSet.equals(accusation);
     }
 
     public boolean matchesVictimSet(Card weapon, Card suspect, Card room) {
-        return (victimSet.contains(weapon) && victimSet.contains(suspect) && victimSet.contains(room));
+        return matchesVictimSet(CardSet.of(weapon, suspect, room));
     }
 
     public boolean matchesVictimSet(int w, int s, int r) {
-        Card suspect = new Card(TYPE_SUSPECT, s);
-        Card weapon = new Card(TYPE_WEAPON, w);
-        Card room = new Card(TYPE_ROOM, r);
-        return (victimSet.contains(weapon) && victimSet.contains(suspect) && victimSet.contains(room));
+        return matchesVictimSet(rules.card(TYPE_WEAPON, w), rules.card(TYPE_SUSPECT, s), rules.card(TYPE_ROOM, r));
     }
 
     public String toString() {
@@ -21,8 +21,6 @@ public class ClueMain extends Game {
 
     public static final Dice DICE = new Dice(1, 6);
 
-    public static boolean difficult_setting = false;
-
     public static final String formatter = "%s suggests\n%s\ncommitted the crime\nwith the %s\nin the %s.";
     public static final String accusationFormatter = "%s makes\nan accusation that\n%s\ncommitted the crime\nwith the %s\nin the %s.\n\nThe accusation is %s.";
 
@@ -66,7 +64,7 @@ public class ClueMain extends Game {
         TILE_LIGHT_GRAY = createSquare(Color.LIGHT_GRAY, Color.GRAY, TILE_DIM, TILE_DIM);
         TILE_DARK_GREEN = createSquare(Color.GREEN, Color.FOREST, TILE_DIM, TILE_DIM);
 
-        GameScreen sc = new GameScreen();
+        GameScreen sc = new GameScreen(GameRandom.fromSystemProperty(), StrategyParameters.load(StrategyParameters.FILE));
         setScreen(sc);
 
     }
@@ -100,12 +98,12 @@ public class ClueMain extends Game {
 
     public static enum Suspect {
 
-        SCARLET(0, 0, Color.RED, 0, "Miss Scarlet", 7, 24),
-        WHITE(0, 2, Color.WHITE, 1, "Mrs. White", 9, 0),
-        PLUM(1, 2, Color.PURPLE, 2, "Professor Plum", 23, 18),
-        MUSTARD(0, 1, Color.GOLDENROD, 3, "Colonel Mustard", 0, 17),
-        GREEN(1, 0, Color.FOREST, 4, "Mr. Green", 13, 0),
-        PEACOCK(1, 1, Color.TEAL, 5, "Mrs. Peacock", 23, 5);
+        SCARLET(0, 0, Color.RED, 0, "Miss Scarlet"),
+        WHITE(0, 2, Color.WHITE, 1, "Mrs. White"),
+        PLUM(1, 2, Color.PURPLE, 2, "Professor Plum"),
+        MUSTARD(0, 1, Color.GOLDENROD, 3, "Colonel Mustard"),
+        GREEN(1, 0, Color.FOREST, 4, "Mr. Green"),
+        PEACOCK(1, 1, Color.TEAL, 5, "Mrs. Peacock");
 
         private int ix;
         private int iy;
@@ -114,17 +112,13 @@ public class ClueMain extends Game {
         private Color color;
         private int id;
         private String title;
-        private int startX;
-        private int startY;
 
-        Suspect(int ix, int iy, Color c, int id, String title, int sx, int sy) {
+        Suspect(int ix, int iy, Color c, int id, String title) {
             this.id = id;
             this.color = c;
             this.circle = createCircle(c, TILE_DIM, TILE_DIM, 10);
             this.icon = CHAR_ICONS[ix][iy];
             this.title = title;
-            this.startX = sx;
-            this.startY = sy;
         }
 
         public TextureRegion icon() {
@@ -148,11 +142,11 @@ public class ClueMain extends Game {
         }
 
         public int startX() {
-            return this.startX;
+            return Board.CLASSIC.getStart(this.id).getX();
         }
 
         public int startY() {
-            return this.startY;
+            return Board.CLASSIC.getStart(this.id).getY();
         }
     }
 
@@ -1,199 +1,116 @@
 package gdx.clue;
 
 import gdx.clue.astar.Location;
+import gdx.clue.astar.Occupancy;
 import gdx.clue.astar.PathFinder;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.StringTokenizer;
 
+/**
+ * Per game view of the board. The tiles come from the shared {@link Board},
+ * only the occupied and highlighted tiles are held per instance.
+ */
 public class ClueMap {
 
-    private final Location[][] nodes;
-    private int hbound = 0;
-    private int vbound = 0;
-
-    private static final String TEMPLATE
-            = "xxxxxxxxxoxxxoxxxxxxxxxx\n"
-            + "xxxxxxxoooxxxoooxxxxxxxx\n"
-            + "xxxxxxooxxxxxxxooxxxxxxx\n"
-            + "xxxxxxooxxxxxxxooxxxxxxx\n"
-            + "xxxxxxooxxxxxxxooo5xxxxx\n"
-            + "xxxxxxoo4xxxxx4ooooooooo\n"
-            + "xxxx3xooxxxxxxxoooooooox\n"
-            + "oooooooox4xxx4xoooxxxxxx\n"
-            + "xooooooooooooooooo6xxxxx\n"
-            + "xxxxxoooooooooooooxxxxxx\n"
-            + "xxxxxxxxooxxxxxoooxxxxxx\n"
-            + "xxxxxxxxooxxxxxoooxxxx6x\n"
-            + "xxxxxxx2ooxxxxxoooooooox\n"
-            + "xxxxxxxxooxxxxxoooxx8xxx\n"
-            + "xxxxxxxxooxxxxxooxxxxxxx\n"
-            + "xxxxxx2xooxxxxxoo8xxxxxx\n"
-            + "xoooooooooxxxxxooxxxxxxx\n"
-            + "ooooooooooooooooooxxxxxx\n"
-            + "xooooooooxx00xxooooooooo\n"
-            + "xxxxxx1ooxxxxxxoooooooox\n"
-            + "xxxxxxxooxxxxx0oo7xxxxxx\n"
-            + "xxxxxxxooxxxxxxooxxxxxxx\n"
-            + "xxxxxxxooxxxxxxooxxxxxxx\n"
-            + "xxxxxxxooxxxxxxooxxxxxxx\n"
-            + "xxxxxxxoxxxxxxxxoxxxxxxx";
+    private final Board board;
+    private final Occupancy occupancy;
+    private final BitSet highlights;
 
     public ClueMap() {
+        this(Board.CLASSIC);
+    }
 
-        StringTokenizer tokens = new StringTokenizer(TEMPLATE, "\n");
-        vbound = tokens.countTokens();
-
-        String line = tokens.nextToken();
-        if (hbound == 0) {
-            hbound = line.length();
-        }
-
-        nodes = new Location[hbound][vbound];
-        for (int i = 0; i < hbound; i++) {
-            for (int j = 0; j < vbound; j++) {
-                nodes[i][j] = new Location(i, j);
-                nodes[i][j].setHeight(100);
-            }
-        }
-
-        tokens = new StringTokenizer(TEMPLATE, "\n");
-        int y = 0;
-
-        while (tokens.hasMoreTokens()) {
-            line = tokens.nextToken();
-            char[] array = line.toCharArray();
-            for (int x = 0; x < array.length; x++) {
-                Location t = nodes[x][y];
-                if (array[x] == 'x') {
-                    t.setBlocked(true);
-                }
-                try {
-                    int room_id = Integer.parseInt(String.valueOf(array[x]));
-                    t.setIsRoom(true);
-                    t.setRoomId(room_id);
-                } catch (Exception e) {
-                }
-            }
-            y++;
-        }
-
-        attachNeighbors();
-
-        //fix 2 doors which need neighbor removals
-        nodes[18][5].removeNeighbor(nodes[18][6]);
-        nodes[18][6].removeNeighbor(nodes[18][5]);
-
-        nodes[17][21].removeNeighbor(nodes[16][21]);
-        nodes[16][21].removeNeighbor(nodes[17][21]);
+    public ClueMap(Board board) {
+        this.board = board;
+        this.occupancy = new Occupancy(board.getXSize(), board.getYSize());
+        this.highlights = new BitSet(board.getTileCount());
+    }
 
+    public Board getBoard() {
+        return board;
     }
 
     public Location getLocation(int x, int y) {
-        if (x < 0 || x >= nodes.length) {
-            return null;
-        }
-        if (y < 0 || x >= nodes[0].length) {
-            return null;
-        }
-        return nodes[x][y];
+        return board.getLocation(x, y);
+    }
+
+    public Occupancy getOccupancy() {
+        return occupancy;
     }
 
     public int getXSize() {
-        return nodes.length;
+        return board.getXSize();
     }
 
     public int getYSize() {
-        return nodes[0].length;
+        return board.getYSize();
     }
 
     public Collection<Location> getLocations() {
-        List<Location> locations = new ArrayList<>();
-        for (int i = 0; i < nodes.length; i++) {
-            for (int j = 0; j < nodes[0].length; j++) {
-                locations.add(nodes[i][j]);
-            }
-        }
-        return locations;
+        return board.getLocations();
     }
 
     public Location getRoomLocation(int room_id) {
-        Location room = null;
-        for (int i = 0; i < nodes.length; i++) {
-            for (int j = 0; j < nodes[0].length; j++) {
-                if (nodes[i][j].getRoomId() == room_id) {
-                    room = nodes[i][j];
-                    break;
-                }
-            }
-        }
-        return room;
+        return board.getRoomLocation(room_id);
     }
 
     public List<Location> getAllRoomLocations() {
-        ArrayList<Location> rooms = new ArrayList<>();
-        for (int i = 0; i < nodes.length; i++) {
-            for (int j = 0; j < nodes[0].length; j++) {
-                if (nodes[i][j].getRoomId() != -1) {
-                    rooms.add(nodes[i][j]);
-                }
-            }
-        }
-        return rooms;
+        return board.getAllRoomLocations();
     }
 
-    private List<Location> getAllDoorLocationsForRoom(int roomId) {
-        if (roomId == -1) {
-            return null;
-        }
-        ArrayList<Location> doors = new ArrayList<>();
-        for (int i = 0; i < nodes.length; i++) {
-            for (int j = 0; j < nodes[0].length; j++) {
-                if (nodes[i][j].getRoomId() == roomId) {;
-                    doors.add(nodes[i][j]);
-                }
-            }
-        }
-        return doors;
+    public boolean isHighlighted(Location location) {
+        return highlights.get(board.index(location));
+    }
+
+    public void setHighlighted(Location location, boolean highlight) {
+        highlights.set(board.index(location), highlight);
     }
 
     public List<Location> highlightReachablePaths(Location starting_location, PathFinder<Location> pathfinder, int dice_roll) {
 
+        List<Location> choices = getReachablePaths(starting_location, pathfinder, dice_roll, occupancy);
+        for (Location l : choices) {
+            setHighlighted(l, true);
+        }
+        return choices;
+
+    }
+
+    /**
+     * The tiles the roll reaches from the location, walking around the
+     * players in the given occupancy. Does not touch the highlights, so it
+     * can run off the render thread against a copy of the occupancy.
+     */
+    public List<Location> getReachablePaths(Location starting_location, PathFinder<Location> pathfinder, int dice_roll, Occupancy occupancy) {
+
         Collection<Location> locs = getLocations();
 
         List<Location> choices = new ArrayList<>();
 
-        List<Location> doors = getAllDoorLocationsForRoom(starting_location.getRoomId());
+        List<Location> doors = board.getAllDoorLocationsForRoom(starting_location.getRoomId());
 
         if (doors == null) {//not in a room
             for (Location loc : locs) {
-                List<Location> path2 = pathfinder.findPath(locs, starting_location, Collections.singleton(loc));
+                List<Location> path2 = pathfinder.findPath(locs, starting_location, Collections.singleton(loc), occupancy);
                 if (path2 != null && path2.size() == dice_roll + 1) {
-                    Location l = path2.get(path2.size() - 1);
-                    l.setHighlighted(true);
-                    choices.add(l);
+                    choices.add(path2.get(path2.size() - 1));
                 }
                 if (path2 != null && loc.isRoom() && path2.size() < dice_roll + 1) {
-                    Location l = path2.get(path2.size() - 1);
-                    l.setHighlighted(true);
-                    choices.add(l);
+                    choices.add(path2.get(path2.size() - 1));
                 }
             }
         } else { //in a room
             for (Location door : doors) {
                 for (Location loc : locs) {
-                    List<Location> path2 = pathfinder.findPath(locs, door, Collections.singleton(loc));
+                    List<Location> path2 = pathfinder.findPath(locs, door, Collections.singleton(loc), occupancy);
                     if (path2 != null && path2.size() == dice_roll + 1) {
-                        Location l = path2.get(path2.size() - 1);
-                        l.setHighlighted(true);
-                        choices.add(l);
+                        choices.add(path2.get(path2.size() - 1));
                     }
                     if (path2 != null && loc.isRoom() && path2.size() < dice_roll + 1) {
-                        Location l = path2.get(path2.size() - 1);
-                        l.setHighlighted(true);
-                        choices.add(l);
+                        choices.add(path2.get(path2.size() - 1));
                     }
                 }
             }
@@ -204,34 +121,7 @@ public class ClueMap {
     }
 
     public void resetHighlights() {
-        for (Location loc : getLocations()) {
-            loc.setHighlighted(false);
-        }
-    }
-
-    private void attachNeighbors() {
-        for (int i = 0; i < nodes.length; i++) {
-            for (int j = 0; j < nodes[0].length; j++) {
-                Location t = nodes[i][j];
-
-                if (i != 0) {
-                    t.addNeighbor(nodes[i - 1][j]);
-                }
-
-                if (i != nodes.length - 1) {
-                    t.addNeighbor(nodes[i + 1][j]);
-                }
-
-                if (j != 0) {
-                    t.addNeighbor(nodes[i][j - 1]);
-                }
-
-                if (j != nodes[0].length - 1) {
-                    t.addNeighbor(nodes[i][j + 1]);
-                }
-            }
-
-        }
+        highlights.clear();
     }
 
 }
@@ -0,0 +1,580 @@
+package gdx.clue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decides what one player can be certain of from the suggestion history.
+ * There is a boolean variable for every card and holder, the holders being
+ * the seats and the envelope. A card has exactly one holder, a seat holds
+ * exactly its hand size and the envelope one card of each type; these are
+ * propagated directly with lazily built reasons. The history adds unit facts
+ * and "showed one of these" clauses. Search is conflict driven clause
+ * learning with two watched literals.
+ *
+ * A fact is entailed when the search finds no deal without it. Learned
+ * clauses follow from the history alone so they are kept between queries.
+ */
+public class ClueSolver {
+
+    /**
+     * Holder value of the envelope.
+     */
+    public static final int ENVELOPE = -1;
+
+    /**
+     * Holder value of a card whose location is not certain.
+     */
+    public static final int UNKNOWN = -2;
+
+    private final Rules rules;
+    private final int players;
+    private final int holders;
+    private final int cards;
+    private final int vars;
+
+    private final byte[] value;
+    private final int[] level;
+    private final int[][] reason;
+    private final int[] trail;
+    private int trailSize;
+    private int qhead;
+    private int[] trailLim = new int[16];
+    private int decisionLevel;
+
+    private final List<int[]> clauses = new ArrayList<>();
+    private final int[][] watches;
+    private final int[] watchCount;
+
+    //exactly k of the group is true: one holder per card, the hand size per
+    //seat, one envelope card per type
+    private final int[][] groupVars;
+    private final int[] groupK;
+    private final int[] groupTrue;
+    private final int[] groupFalse;
+    private final int[][] varGroups;
+
+    private final double[] activity;
+    private double bump = 1.0;
+    private final boolean[] seen;
+    private final int[] model;
+    private boolean unsat;
+    private long conflicts;
+
+    public ClueSolver(Rules rules, int playerCount) {
+        this.rules = rules;
+        this.players = playerCount;
+        this.holders = playerCount + 1;
+        this.cards = rules.total();
+        this.vars = cards * holders;
+
+        value = new byte[vars];
+        level = new int[vars];
+        reason = new int[vars][];
+        trail = new int[vars];
+        watches = new int[vars * 2][];
+        watchCount = new int[vars * 2];
+        for (int i = 0; i < watches.length; i++) {
+            watches[i] = new int[4];
+        }
+        activity = new double[vars];
+        seen = new boolean[vars];
+        model = new int[cards];
+
+        int[] handSizes = Deduction.handSizes(rules, playerCount);
+        int groups = cards + players + 3;
+        groupVars = new int[groups][];
+        groupK = new int[groups];
+        groupTrue = new int[groups];
+        groupFalse = new int[groups];
+        varGroups = new int[vars][2];
+        for (int c = 0; c < cards; c++) {
+            groupVars[c] = new int[holders];
+            groupK[c] = 1;
+            for (int h = 0; h < holders; h++) {
+                groupVars[c][h] = var(c, h);
+                varGroups[var(c, h)][0] = c;
+            }
+        }
+        for (int s = 0; s < players; s++) {
+            int g = cards + s;
+            groupVars[g] = new int[cards];
+            groupK[g] = handSizes[s];
+            for (int c = 0; c < cards; c++) {
+                groupVars[g][c] = var(c, s);
+                varGroups[var(c, s)][1] = g;
+            }
+        }
+        for (int type = Card.TYPE_SUSPECT; type <= Card.TYPE_ROOM; type++) {
+            int g = cards + players + type;
+            groupVars[g] = new int[rules.count(type)];
+            groupK[g] = 1;
+            for (int i = 0; i < rules.count(type); i++) {
+                int c = rules.ordinal(type, i);
+                groupVars[g][i] = var(c, players);
+                varGroups[var(c, players)][1] = g;
+            }
+        }
+    }
+
+    /**
+     * A solver with what the observing player knows: their own hand and the
+     * part of every recorded suggestion they could see.
+     */
+    public static ClueSolver forObserver(Rules rules, int playerCount, int observerSeat, long observerHand, SuggestionHistory history) {
+        ClueSolver solver = new ClueSolver(rules, playerCount);
+        solver.holds(observerSeat, observerHand, rules.allBits() & ~observerHand);
+        for (int i = 0; i < history.size(); i++) {
+            long suggestion = history.getCards(i);
+            for (long p = history.getPasses(i); p != 0L; p &= p - 1) {
+                solver.holdsNone(Long.numberOfTrailingZeros(p), suggestion);
+            }
+            int disprover = history.getDisprover(i);
+            if (disprover == -1 || disprover == observerSeat) {
+                continue;
+            }
+            if (history.getSuggester(i) == observerSeat) {
+                solver.holds(disprover, 1L << history.getShown(i), 0L);
+            } else {
+                solver.holdsOneOf(disprover, suggestion);
+            }
+        }
+        return solver;
+    }
+
+    private int var(int card, int holder) {
+        return card * holders + holder;
+    }
+
+    private static int lit(int var, boolean positive) {
+        return var << 1 | (positive ? 0 : 1);
+    }
+
+    private int litValue(int lit) {
+        int v = value[lit >> 1];
+        return (lit & 1) == 0 ? v : -v;
+    }
+
+    /**
+     * The seat holds all the cards of the first mask and none of the second.
+     */
+    public void holds(int seat, long held, long notHeld) {
+        for (long b = held; b != 0L; b &= b - 1) {
+            addClause(new int[]{lit(var(Long.numberOfTrailingZeros(b), seat), true)});
+        }
+        holdsNone(seat, notHeld);
+    }
+
+    public void holdsNone(int seat, long cardsNotHeld) {
+        for (long b = cardsNotHeld; b != 0L; b &= b - 1) {
+            addClause(new int[]{lit(var(Long.numberOfTrailingZeros(b), seat), false)});
+        }
+    }
+
+    public void holdsOneOf(int seat, long cardsHeld) {
+        int[] clause = new int[Long.bitCount(cardsHeld)];
+        int i = 0;
+        for (long b = cardsHeld; b != 0L; b &= b - 1) {
+            clause[i++] = lit(var(Long.numberOfTrailingZeros(b), seat), true);
+        }
+        addClause(clause);
+    }
+
+    private void addClause(int[] lits) {
+        backtrack(0);
+        int n = 0;
+        for (int lit : lits) {
+            int v = litValue(lit);
+            if (v == 1) {
+                return;
+            }
+            if (v == 0) {
+                lits[n++] = lit;
+            }
+        }
+        if (n == 0) {
+            unsat = true;
+        } else if (n == 1) {
+            assign(lits[0], null);
+        } else {
+            int[] clause = Arrays.copyOf(lits, n);
+            attach(clause);
+        }
+    }
+
+    private void attach(int[] clause) {
+        int index = clauses.size();
+        clauses.add(clause);
+        watch(clause[0], index);
+        watch(clause[1], index);
+    }
+
+    private void watch(int lit, int clause) {
+        if (watchCount[lit] == watches[lit].length) {
+            watches[lit] = Arrays.copyOf(watches[lit], watchCount[lit] * 2);
+        }
+        watches[lit][watchCount[lit]++] = clause;
+    }
+
+    private void assign(int lit, int[] why) {
+        int v = lit >> 1;
+        boolean positive = (lit & 1) == 0;
+        value[v] = (byte) (positive ? 1 : -1);
+        level[v] = decisionLevel;
+        reason[v] = why;
+        trail[trailSize++] = lit;
+        for (int g : varGroups[v]) {
+            if (positive) {
+                groupTrue[g]++;
+            } else {
+                groupFalse[g]++;
+            }
+        }
+    }
+
+    private void newLevel() {
+        if (decisionLevel == trailLim.length) {
+            trailLim = Arrays.copyOf(trailLim, decisionLevel * 2);
+        }
+        trailLim[decisionLevel++] = trailSize;
+    }
+
+    private void backtrack(int target) {
+        if (decisionLevel <= target) {
+            return;
+        }
+        int stop = trailLim[target];
+        while (trailSize > stop) {
+            int lit = trail[--trailSize];
+            int v = lit >> 1;
+            for (int g : varGroups[v]) {
+                if ((lit & 1) == 0) {
+                    groupTrue[g]--;
+                } else {
+                    groupFalse[g]--;
+                }
+            }
+            value[v] = 0;
+            reason[v] = null;
+        }
+        qhead = Math.min(qhead, trailSize);
+        decisionLevel = target;
+    }
+
+    /**
+     * Propagates the trail, returning a conflicting clause or null.
+     */
+    private int[] propagate() {
+        while (qhead < trailSize) {
+            int lit = trail[qhead++];
+            for (int g : varGroups[lit >> 1]) {
+                int[] conflict = propagateGroup(g);
+                if (conflict != null) {
+                    return conflict;
+                }
+            }
+
+            int falseLit = lit ^ 1;
+            int[] ws = watches[falseLit];
+            int n = watchCount[falseLit];
+            int j = 0;
+            for (int i = 0; i < n; i++) {
+                int index = ws[i];
+                int[] c = clauses.get(index);
+                if (c[0] == falseLit) {
+                    c[0] = c[1];
+                    c[1] = falseLit;
+                }
+                if (litValue(c[0]) == 1) {
+                    ws[j++] = index;
+                    continue;
+                }
+                boolean moved = false;
+                for (int k = 2; k < c.length; k++) {
+                    if (litValue(c[k]) != -1) {
+                        c[1] = c[k];
+                        c[k] = falseLit;
+                        watch(c[1], index);
+                        moved = true;
+                        break;
+                    }
+                }
+                if (moved) {
+                    continue;
+                }
+                ws[j++] = index;
+                if (litValue(c[0]) == -1) {
+                    while (++i < n) {
+                        ws[j++] = ws[i];
+                    }
+                    watchCount[falseLit] = j;
+                    return c;
+                }
+                assign(c[0], c);
+            }
+            watchCount[falseLit] = j;
+        }
+        return null;
+    }
+
+    private int[] propagateGroup(int g) {
+        int[] gv = groupVars[g];
+        int k = groupK[g];
+        int t = groupTrue[g];
+        int f = groupFalse[g];
+        if (t > k) {
+            return collect(gv, 1, k + 1, -1);
+        }
+        if (gv.length - f < k) {
+            return collect(gv, -1, f, -1);
+        }
+        if (t + f == gv.length) {
+            return null;
+        }
+        if (t == k) {
+            for (int v : gv) {
+                if (value[v] == 0) {
+                    assign(lit(v, false), collect(gv, 1, t, lit(v, false)));
+                }
+            }
+        } else if (gv.length - f == k) {
+            for (int v : gv) {
+                if (value[v] == 0) {
+                    assign(lit(v, true), collect(gv, -1, f, lit(v, true)));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A clause falsified by the group members with the given value, led by
+     * the implied literal if there is one.
+     */
+    private int[] collect(int[] gv, int sign, int count, int implied) {
+        int offset = implied == -1 ? 0 : 1;
+        int[] clause = new int[count + offset];
+        if (implied != -1) {
+            clause[0] = implied;
+        }
+        int n = offset;
+        for (int i = 0; i < gv.length && n < clause.length; i++) {
+            if (value[gv[i]] == sign) {
+                clause[n++] = lit(gv[i], sign != 1);
+            }
+        }
+        return clause;
+    }
+
+    /**
+     * Learns the first unique implication point clause of the conflict,
+     * jumps back and asserts it.
+     */
+    private void learn(int[] conflict) {
+        conflicts++;
+        int[] learnt = new int[8];
+        int size = 1;
+        int pathCount = 0;
+        int p = -1;
+        int index = trailSize - 1;
+        int[] c = conflict;
+        do {
+            for (int q : c) {
+                if (q == p) {
+                    continue;
+                }
+                int v = q >> 1;
+                if (!seen[v] && level[v] > 0) {
+                    seen[v] = true;
+                    activity[v] += bump;
+                    if (level[v] == decisionLevel) {
+                        pathCount++;
+                    } else {
+                        if (size == learnt.length) {
+                            learnt = Arrays.copyOf(learnt, size * 2);
+                        }
+                        learnt[size++] = q;
+                    }
+                }
+            }
+            while (!seen[trail[index] >> 1]) {
+                index--;
+            }
+            p = trail[index--];
+            c = reason[p >> 1];
+            seen[p >> 1] = false;
+            pathCount--;
+        } while (pathCount > 0);
+        learnt[0] = p ^ 1;
+
+        int jump = 0;
+        for (int i = 1; i < size; i++) {
+            seen[learnt[i] >> 1] = false;
+            if (level[learnt[i] >> 1] > level[learnt[1] >> 1]) {
+                int swap = learnt[1];
+                learnt[1] = learnt[i];
+                learnt[i] = swap;
+            }
+        }
+        if (size > 1) {
+            jump = level[learnt[1] >> 1];
+        }
+
+        bump *= 1.05;
+        if (bump > 1e100) {
+            for (int v = 0; v < vars; v++) {
+                activity[v] *= 1e-100;
+            }
+            bump *= 1e-100;
+        }
+
+        backtrack(jump);
+        if (size == 1) {
+            assign(learnt[0], null);
+        } else {
+            int[] clause = Arrays.copyOf(learnt, size);
+            attach(clause);
+            assign(clause[0], clause);
+        }
+    }
+
+    /**
+     * The most active open holder of the card with the fewest open holders.
+     */
+    private int pickBranchVar() {
+        int best = -1;
+        int bestOpen = Integer.MAX_VALUE;
+        for (int c = 0; c < cards; c++) {
+            int open = holders - groupFalse[c];
+            if (groupTrue[c] == 0 && open < bestOpen) {
+                best = c;
+                bestOpen = open;
+            }
+        }
+        if (best == -1) {
+            return -1;
+        }
+        int pick = -1;
+        for (int v : groupVars[best]) {
+            if (value[v] == 0 && (pick == -1 || activity[v] > activity[pick])) {
+                pick = v;
+            }
+        }
+        return pick;
+    }
+
+    /**
+     * Searches for a deal, assuming the literal as well if it is not -1.
+     */
+    private boolean solve(int assumption) {
+        backtrack(0);
+        while (!unsat) {
+            int[] conflict = propagate();
+            if (conflict != null) {
+                if (decisionLevel == 0) {
+                    unsat = true;
+                    break;
+                }
+                learn(conflict);
+                continue;
+            }
+            if (assumption != -1 && decisionLevel == 0) {
+                int v = litValue(assumption);
+                if (v == -1) {
+                    return false;
+                }
+                if (v == 0) {
+                    newLevel();
+                    assign(assumption, null);
+                    continue;
+                }
+            }
+            int v = pickBranchVar();
+            if (v == -1) {
+                for (int i = 0; i < vars; i++) {
+                    if (value[i] == 1) {
+                        model[i / holders] = i % holders;
+                    }
+                }
+                backtrack(0);
+                return true;
+            }
+            newLevel();
+            assign(lit(v, true), null);
+        }
+        return false;
+    }
+
+    /**
+     * False if the history contradicts itself.
+     */
+    public boolean isSatisfiable() {
+        return solve(-1);
+    }
+
+    /**
+     * True if the card is held by the holder in every consistent deal.
+     */
+    public boolean isEntailed(int ordinal, int holder) {
+        int h = holder == ENVELOPE ? players : holder;
+        return !solve(lit(var(ordinal, h), false));
+    }
+
+    /**
+     * The certain holder of every card, {@link #ENVELOPE} or
+     * {@link #UNKNOWN}. Each deal found while testing a card rules out
+     * certainty for every card it places differently.
+     */
+    public int[] getEntailedHolders() {
+        int[] result = new int[cards];
+        if (!solve(-1)) {
+            Arrays.fill(result, UNKNOWN);
+            return result;
+        }
+        int[] candidate = model.clone();
+        boolean[] open = new boolean[cards];
+        Arrays.fill(open, true);
+        for (int c = 0; c < cards; c++) {
+            if (!open[c]) {
+                continue;
+            }
+            open[c] = false;
+            if (solve(lit(var(c, candidate[c]), false))) {
+                result[c] = UNKNOWN;
+                for (int o = c + 1; o < cards; o++) {
+                    if (open[o] && model[o] != candidate[o]) {
+                        open[o] = false;
+                        result[o] = UNKNOWN;
+                    }
+                }
+            } else {
+                result[c] = candidate[c] == players ? ENVELOPE : candidate[c];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Mask of the cards certainly in the envelope.
+     */
+    public long getEnvelope() {
+        int[] entailed = getEntailedHolders();
+        long envelope = 0L;
+        for (int c = 0; c < cards; c++) {
+            if (entailed[c] == ENVELOPE) {
+                envelope |= 1L << c;
+            }
+        }
+        return envelope;
+    }
+
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    public Rules getRules() {
+        return rules;
+    }
+
+}
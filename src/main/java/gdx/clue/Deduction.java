@@ -0,0 +1,366 @@
+package gdx.clue;
+
+import static gdx.clue.Card.TYPE_ROOM;
+import static gdx.clue.Card.TYPE_SUSPECT;
+import java.util.Arrays;
+
+/**
+ * What one player can deduce about the location of every card, keyed on card
+ * ordinals and seats. Three kinds of facts are recorded: a seat was seen to
+ * hold a card, a seat could not disprove a suggestion, and a seat showed
+ * someone else one of the suggested cards. {@link #propagate()} combines
+ * them with the hand sizes and the one card per category envelope rule until
+ * nothing more follows. Everything is a long mask so an update costs a few
+ * bit operations per seat.
+ */
+public class Deduction {
+
+    private final Rules rules;
+    private final int playerCount;
+    private final int observerSeat;
+    private final int[] handSizes;
+
+    private final long[] has;
+    private final long[] hasNot;
+    private long envelope;
+    private long notEnvelope;
+
+    //seat showed one of the cards, not yet resolved
+    private int[] clauseSeats = new int[16];
+    private long[] clauseCards = new long[16];
+    private int clauseCount;
+
+    private boolean consistent = true;
+    private int version;
+
+    public Deduction(Rules rules, int playerCount, int observerSeat, long observerHand) {
+        this.rules = rules;
+        this.playerCount = playerCount;
+        this.observerSeat = observerSeat;
+        this.handSizes = handSizes(rules, playerCount);
+        this.has = new long[playerCount];
+        this.hasNot = new long[playerCount];
+        has[observerSeat] = observerHand;
+        hasNot[observerSeat] = ~observerHand & rules.allBits();
+        fixpoint();
+        version++;
+    }
+
+    private Deduction(Deduction other) {
+        this.rules = other.rules;
+        this.playerCount = other.playerCount;
+        this.observerSeat = other.observerSeat;
+        this.handSizes = other.handSizes;
+        this.has = other.has.clone();
+        this.hasNot = other.hasNot.clone();
+        this.envelope = other.envelope;
+        this.notEnvelope = other.notEnvelope;
+        this.clauseSeats = Arrays.copyOf(other.clauseSeats, other.clauseSeats.length);
+        this.clauseCards = Arrays.copyOf(other.clauseCards, other.clauseCards.length);
+        this.clauseCount = other.clauseCount;
+        this.consistent = other.consistent;
+        this.version = other.version;
+    }
+
+    /**
+     * Number of cards dealt to each seat, dealing starts with seat 0.
+     */
+    public static int[] handSizes(Rules rules, int playerCount) {
+        int[] sizes = new int[playerCount];
+        for (int s = 0; s < playerCount; s++) {
+            sizes[s] = rules.dealt() / playerCount + (s < rules.dealt() % playerCount ? 1 : 0);
+        }
+        return sizes;
+    }
+
+    public Deduction copy() {
+        return new Deduction(this);
+    }
+
+    /**
+     * The seat was seen holding the card.
+     */
+    public void cardShown(int seat, int ordinal) {
+        long before = has[seat];
+        has[seat] |= 1L << ordinal;
+        update(has[seat] != before);
+    }
+
+    /**
+     * The seat was asked and holds none of the suggested cards.
+     */
+    public void couldNotDisprove(int seat, long suggestion) {
+        long before = hasNot[seat];
+        hasNot[seat] |= suggestion;
+        update(hasNot[seat] != before);
+    }
+
+    /**
+     * The seat showed one of the suggested cards to somebody else.
+     */
+    public void disproved(int seat, long suggestion) {
+        if (clauseCount == clauseCards.length) {
+            clauseSeats = Arrays.copyOf(clauseSeats, clauseCount * 2);
+            clauseCards = Arrays.copyOf(clauseCards, clauseCount * 2);
+        }
+        int before = clauseCount;
+        clauseSeats[clauseCount] = seat;
+        clauseCards[clauseCount] = suggestion;
+        clauseCount++;
+        //a clause already satisfied is dropped again at once, older ones
+        //only drop when the masks change
+        boolean changed = fixpoint();
+        if (changed || clauseCount > before) {
+            version++;
+        }
+    }
+
+    private void update(boolean changed) {
+        if (fixpoint() || changed) {
+            version++;
+        }
+    }
+
+    /**
+     * Applies the rules until a fixpoint is reached.
+     */
+    public void propagate() {
+        update(false);
+    }
+
+    /**
+     * True if any mask changed.
+     */
+    private boolean fixpoint() {
+        long all = rules.allBits();
+        boolean any = false;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            //a card has one location
+            long owned = 0L;
+            for (int s = 0; s < playerCount; s++) {
+                owned |= has[s];
+            }
+            for (int s = 0; s < playerCount; s++) {
+                long n = hasNot[s] | (owned & ~has[s]) | envelope;
+                if (n != hasNot[s]) {
+                    hasNot[s] = n;
+                    changed = true;
+                }
+            }
+            if ((notEnvelope | owned) != notEnvelope) {
+                notEnvelope |= owned;
+                changed = true;
+            }
+
+            //hand sizes
+            for (int s = 0; s < playerCount; s++) {
+                int known = Long.bitCount(has[s]);
+                long possible = all & ~hasNot[s];
+                if (known == handSizes[s] && possible != has[s]) {
+                    hasNot[s] = all & ~has[s];
+                    changed = true;
+                } else if (known < handSizes[s] && Long.bitCount(possible) == handSizes[s]) {
+                    has[s] = possible;
+                    changed = true;
+                }
+                if (known > handSizes[s] || (has[s] & hasNot[s]) != 0L) {
+                    consistent = false;
+                }
+            }
+
+            //cards nobody can hold are in the envelope, cards only one seat
+            //can hold and known not to be in the envelope are with that seat
+            long once = 0L;
+            long twice = 0L;
+            for (int s = 0; s < playerCount; s++) {
+                long possible = all & ~hasNot[s];
+                twice |= once & possible;
+                once |= possible;
+            }
+            long nobody = all & ~once;
+            if ((envelope | nobody) != envelope) {
+                envelope |= nobody;
+                changed = true;
+            }
+            long single = once & ~twice & notEnvelope;
+            if (single != 0L) {
+                for (int s = 0; s < playerCount; s++) {
+                    long add = single & ~hasNot[s] & ~has[s];
+                    if (add != 0L) {
+                        has[s] |= add;
+                        changed = true;
+                    }
+                }
+            }
+
+            //one card of each category in the envelope
+            for (int type = TYPE_SUSPECT; type <= TYPE_ROOM; type++) {
+                long typeBits = rules.typeBits(type);
+                long known = envelope & typeBits;
+                long candidates = typeBits & ~notEnvelope;
+                if (known != 0L) {
+                    if (Long.bitCount(known) > 1) {
+                        consistent = false;
+                    }
+                    long others = typeBits & ~known;
+                    if ((notEnvelope | others) != notEnvelope) {
+                        notEnvelope |= others;
+                        changed = true;
+                    }
+                } else if (Long.bitCount(candidates) == 1) {
+                    envelope |= candidates;
+                    changed = true;
+                } else if (candidates == 0L) {
+                    consistent = false;
+                }
+            }
+
+            //showed one of these cards
+            for (int i = 0; i < clauseCount; i++) {
+                int s = clauseSeats[i];
+                long cards = clauseCards[i];
+                long remaining = cards & ~hasNot[s];
+                if ((cards & has[s]) != 0L || Long.bitCount(remaining) == 1) {
+                    if ((cards & has[s]) == 0L) {
+                        has[s] |= remaining;
+                        changed = true;
+                    }
+                    //satisfied, drop it
+                    clauseCount--;
+                    clauseSeats[i] = clauseSeats[clauseCount];
+                    clauseCards[i] = clauseCards[clauseCount];
+                    i--;
+                } else if (remaining == 0L) {
+                    consistent = false;
+                }
+            }
+            any |= changed;
+        }
+        return any;
+    }
+
+    public Rules getRules() {
+        return rules;
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    public int getObserverSeat() {
+        return observerSeat;
+    }
+
+    public int getHandSize(int seat) {
+        return handSizes[seat];
+    }
+
+    /**
+     * Cards known to be held by the seat.
+     */
+    public long getHas(int seat) {
+        return has[seat];
+    }
+
+    /**
+     * Cards known not to be held by the seat.
+     */
+    public long getHasNot(int seat) {
+        return hasNot[seat];
+    }
+
+    /**
+     * Cards known to be in the envelope.
+     */
+    public long getEnvelope() {
+        return envelope;
+    }
+
+    /**
+     * Cards known not to be in the envelope.
+     */
+    public long getNotEnvelope() {
+        return notEnvelope;
+    }
+
+    /**
+     * Cards of the type that may still be in the envelope.
+     */
+    public long getEnvelopeCandidates(int type) {
+        return rules.typeBits(type) & ~notEnvelope;
+    }
+
+    /**
+     * Cards known to be held by some seat other than the observer.
+     */
+    public long getHeldByOthers() {
+        long owned = 0L;
+        for (int s = 0; s < playerCount; s++) {
+            if (s != observerSeat) {
+                owned |= has[s];
+            }
+        }
+        return owned;
+    }
+
+    /**
+     * The seat known to hold the card, or -1.
+     */
+    public int getKnownHolder(int ordinal) {
+        long bit = 1L << ordinal;
+        for (int s = 0; s < playerCount; s++) {
+            if ((has[s] & bit) != 0L) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * True when all three envelope cards are known.
+     */
+    public boolean isSolved() {
+        return Long.bitCount(envelope) == 3;
+    }
+
+    public int getClauseCount() {
+        return clauseCount;
+    }
+
+    public int getClauseSeat(int i) {
+        return clauseSeats[i];
+    }
+
+    public long getClauseCards(int i) {
+        return clauseCards[i];
+    }
+
+    /**
+     * False if the recorded facts contradict each other.
+     */
+    public boolean isConsistent() {
+        return consistent;
+    }
+
+    /**
+     * Incremented whenever an update changes what is known, for caching
+     * results derived from this knowledge.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("envelope: ").append(CardSet.fromBits(rules, envelope)).append("\n");
+        for (int s = 0; s < playerCount; s++) {
+            sb.append(s).append(" has: ").append(CardSet.fromBits(rules, has[s])).append("\n");
+        }
+        return sb.toString();
+    }
+
+}
@@ -1,7 +1,5 @@
 package gdx.clue;
 
-import java.util.Random;
-
 public class Dice {
 
     int num;
@@ -22,11 +20,10 @@ public class Dice {
         num = number;
     }
 
-    public int roll() {
-        Random r = new Random();
+    public int roll(GameRandom random) {
         int sum = 0;
         for (int i = 0; i < num; i++) {
-            sum += r.nextInt(sides) + 1;
+            sum += random.nextInt(sides) + 1;
         }
         return sum;
     }
@@ -0,0 +1,98 @@
+package gdx.clue;
+
+/**
+ * How hard the computer players think, as fixed compute budgets per turn.
+ * Easy players only use what their notebook marks off, move by the rooms
+ * left and suggest likely cards; the solver, the suggestion chooser, the
+ * tree search and the endgame solver are switched on and given more time
+ * and threads from there. A budget of 0 leaves that part out.
+ */
+public enum Difficulty {
+
+    EASY("Easy", false, 2000, 1000000L, 128, 0L, 0L, 1, 0L),
+    NORMAL("Normal", true, 10000, 3000000L, 256, 5000000L, 50000000L, 2, 2000000L),
+    HARD("Hard", true, EnvelopeEstimator.DEFAULT_SAMPLES, EnvelopeEstimator.DEFAULT_BUDGET_NANOS, EnvelopeEstimator.DEFAULT_KEPT_DEALS,
+            SuggestionChooser.DEFAULT_BUDGET_NANOS, IsmctsSearch.DEFAULT_BUDGET_NANOS, Integer.MAX_VALUE, EndgameSolver.DEFAULT_BUDGET_NANOS),
+    EXPERT("Expert", true, 50000, 15000000L, 1024, 30000000L, 400000000L, Integer.MAX_VALUE, 20000000L);
+
+    private final String title;
+    private final boolean solver;
+    private final int samples;
+    private final long sampleBudgetNanos;
+    private final int keptDeals;
+    private final long suggestionBudgetNanos;
+    private final long searchBudgetNanos;
+    private final int searchThreads;
+    private final long endgameBudgetNanos;
+
+    private Difficulty(String title, boolean solver, int samples, long sampleBudgetNanos, int keptDeals,
+            long suggestionBudgetNanos, long searchBudgetNanos, int searchThreads, long endgameBudgetNanos) {
+        this.title = title;
+        this.solver = solver;
+        this.samples = samples;
+        this.sampleBudgetNanos = sampleBudgetNanos;
+        this.keptDeals = keptDeals;
+        this.suggestionBudgetNanos = suggestionBudgetNanos;
+        this.searchBudgetNanos = searchBudgetNanos;
+        this.searchThreads = searchThreads;
+        this.endgameBudgetNanos = endgameBudgetNanos;
+    }
+
+    public String title() {
+        return this.title;
+    }
+
+    /**
+     * Whether the full solver is asked when the notebook alone has not
+     * found the envelope.
+     */
+    public boolean useSolver() {
+        return this.solver;
+    }
+
+    public int getSamples() {
+        return this.samples;
+    }
+
+    public long getSampleBudgetNanos() {
+        return this.sampleBudgetNanos;
+    }
+
+    public int getKeptDeals() {
+        return this.keptDeals;
+    }
+
+    public long getSuggestionBudgetNanos() {
+        return this.suggestionBudgetNanos;
+    }
+
+    public long getSearchBudgetNanos() {
+        return this.searchBudgetNanos;
+    }
+
+    /**
+     * The most search threads to use, capped by the machine.
+     */
+    public int getSearchThreads() {
+        return this.searchThreads;
+    }
+
+    /**
+     * Time for the endgame solver to weigh accusing against waiting, 0 to
+     * accuse whenever nobody can disprove a suggestion.
+     */
+    public long getEndgameBudgetNanos() {
+        return this.endgameBudgetNanos;
+    }
+
+    /**
+     * Applies the sampling budget to the computer player's estimator.
+     */
+    public void configure(Reasoner reasoner) {
+        EnvelopeEstimator estimator = reasoner.getEstimator();
+        estimator.setSamples(samples);
+        estimator.setBudgetNanos(sampleBudgetNanos);
+        estimator.setKeptDeals(keptDeals);
+    }
+
+}
@@ -0,0 +1,409 @@
+package gdx.clue;
+
+import static gdx.clue.Card.TYPE_ROOM;
+import static gdx.clue.Card.TYPE_SUSPECT;
+import static gdx.clue.Card.TYPE_WEAPON;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decides whether to accuse now or to keep suggesting once few envelopes
+ * remain, by which gives the better chance of winning. A wrong accusation
+ * loses the game, waiting gives the opponents time to get there first.
+ *
+ * The state is the set of candidates left of each type, three small masks,
+ * starting from what the {@link Deduction} has not ruled out. Each envelope
+ * over them is weighted by its deals, counted exactly with the three cards
+ * fixed by an {@link EnvelopeCounter} when that is cheap, otherwise taken
+ * from the kept deals of the {@link EnvelopeEstimate}. Suggesting names at
+ * most one candidate of each type and fills the rest with cards from the
+ * player's hand or the known envelope card of the type. The answer is
+ * modelled as the first named candidate in suspect, weapon, room order that
+ * is not in the envelope, or nobody showing; that keeps every posterior a
+ * restriction of the masks, so states are memoized on the masks and the
+ * turns left. Turns are deepened
+ * one at a time until the time budget runs out or the maximum depth is
+ * reached, the deepest finished depth decides. Without a budget,
+ * {@link #NO_DEADLINE}, the depth alone bounds the search.
+ */
+public class EndgameSolver {
+
+    public static final long DEFAULT_BUDGET_NANOS = 5000000L;
+    public static final int MAX_ENVELOPES = 64;
+    public static final int MAX_DEPTH = 12;
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private static final int MAX_CANDIDATES = 8;
+    private static final int[] TYPES = {TYPE_SUSPECT, TYPE_WEAPON, TYPE_ROOM};
+
+    private final Rules rules;
+    private final StrategyParameters strategy;
+    private long budgetNanos = DEFAULT_BUDGET_NANOS;
+    private int maxDepth = MAX_DEPTH;
+
+    public EndgameSolver(Rules rules) {
+        this(rules, StrategyParameters.DEFAULT);
+    }
+
+    public EndgameSolver(Rules rules, StrategyParameters strategy) {
+        this.rules = rules;
+        this.strategy = strategy;
+    }
+
+    public void setBudgetNanos(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+    }
+
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * The outcome of a solve.
+     */
+    public static class Decision {
+
+        private final boolean accuse;
+        private final long guess;
+        private final double accuseValue;
+        private final double waitValue;
+        private final int depth;
+
+        Decision(boolean accuse, long guess, double accuseValue, double waitValue, int depth) {
+            this.accuse = accuse;
+            this.guess = guess;
+            this.accuseValue = accuseValue;
+            this.waitValue = waitValue;
+            this.depth = depth;
+        }
+
+        public boolean isAccuse() {
+            return accuse;
+        }
+
+        /**
+         * The most likely envelope as card bits.
+         */
+        public long getGuess() {
+            return guess;
+        }
+
+        /**
+         * Chance of winning by accusing now.
+         */
+        public double getAccuseValue() {
+            return accuseValue;
+        }
+
+        /**
+         * Chance of winning by suggesting first and playing on well.
+         */
+        public double getWaitValue() {
+            return waitValue;
+        }
+
+        /**
+         * Suggestions looked ahead by the deepest finished search.
+         */
+        public int getDepth() {
+            return depth;
+        }
+    }
+
+    /**
+     * Chance that some opponent makes a correct accusation within a round,
+     * from how many cards each has been shown. An opponent nobody could
+     * disprove is taken to know the envelope but for the cards they named.
+     */
+    public double opponentHazard(int playerCount, int observer, SuggestionHistory history) {
+        int[] handSizes = Deduction.handSizes(rules, playerCount);
+        int[] known = new int[playerCount];
+        for (int seat = 0; seat < playerCount; seat++) {
+            known[seat] = handSizes[seat];
+        }
+        for (int i = 0; i < history.size(); i++) {
+            int suggester = history.getSuggester(i);
+            known[suggester] += history.getDisprover(i) == -1 ? 3 : 1;
+        }
+        double survive = 1;
+        for (int seat = 0; seat < playerCount; seat++) {
+            if (seat == observer) {
+                continue;
+            }
+            double progress = Math.min(1.0, (double) known[seat] / (rules.total() - 3));
+            survive *= 1 - Math.pow(progress, strategy.getHazardPower()) * strategy.getHazardScale();
+        }
+        return 1 - survive;
+    }
+
+    /**
+     * Null when too many envelopes remain for the endgame.
+     */
+    public Decision solve(Reasoner reasoner, GameRandom random, long hand, double hazard) {
+        long deadline = budgetNanos == NO_DEADLINE ? NO_DEADLINE : System.nanoTime() + budgetNanos;
+
+        //candidates of each type are what the deduction has not ruled out
+        Deduction deduction = reasoner.getDeduction();
+        int[][] candidates = new int[3][];
+        int envelopes = 1;
+        for (int k = 0; k < 3; k++) {
+            long bits = deduction.getEnvelopeCandidates(TYPES[k]);
+            if (bits == 0L || Long.bitCount(bits) > MAX_CANDIDATES) {
+                return null;
+            }
+            candidates[k] = new int[Long.bitCount(bits)];
+            int n = 0;
+            for (long b = bits; b != 0L; b &= b - 1) {
+                candidates[k][n++] = Long.numberOfTrailingZeros(b);
+            }
+            envelopes *= n;
+        }
+        if (envelopes > MAX_ENVELOPES) {
+            return null;
+        }
+
+        Search search = new Search(candidates, hand, 1 - hazard, deadline);
+        EnvelopeCounter counter = new EnvelopeCounter(deduction);
+        if (counter.getCost() <= EnvelopeCounter.EXACT_COST_LIMIT) {
+            //every envelope weighted by its deals, counted with its cards fixed
+            for (int s : candidates[0]) {
+                for (int w : candidates[1]) {
+                    for (int r : candidates[2]) {
+                        long envelope = (1L << s) | (1L << w) | (1L << r);
+                        search.add(envelope, counter.countDeals(envelope, reasoner.getTracker()));
+                    }
+                }
+            }
+        } else {
+            //the kept deals, with the envelopes none of them hit put in at
+            //what their cards' probabilities give so none is taken as ruled out
+            EnvelopeEstimate estimate = reasoner.getEnvelopeEstimate(random);
+            Map<Long, Double> sampled = new HashMap<>();
+            double total = 0;
+            for (int i = 0; i < estimate.getDealCount(); i++) {
+                byte[] deal = estimate.getDeal(i);
+                long envelope = 0L;
+                for (int c = 0; c < deal.length; c++) {
+                    if (deal[c] == EnvelopeEstimate.ENVELOPE) {
+                        envelope |= 1L << c;
+                    }
+                }
+                sampled.merge(envelope, estimate.getWeight(i), Double::sum);
+                total += estimate.getWeight(i);
+            }
+            if (total <= 0) {
+                total = 1;
+            }
+            for (int s : candidates[0]) {
+                for (int w : candidates[1]) {
+                    for (int r : candidates[2]) {
+                        long envelope = (1L << s) | (1L << w) | (1L << r);
+                        Double weight = sampled.get(envelope);
+                        search.add(envelope, weight != null ? weight : total
+                                * estimate.getProbability(s) * estimate.getProbability(w) * estimate.getProbability(r));
+                    }
+                }
+            }
+        }
+
+        int root = search.fullState();
+        double accuseValue = search.accuseValue(root);
+        long guess = search.best(root);
+        double waitValue = 0;
+        int depth = 0;
+        for (int d = 1; d <= maxDepth && accuseValue < 1; d++) {
+            double value = search.waitValue(root, d);
+            if (Double.isNaN(value)) {
+                break;
+            }
+            waitValue = value;
+            depth = d;
+        }
+        return new Decision(accuseValue >= waitValue, guess, accuseValue, waitValue, depth);
+    }
+
+    private class Search {
+
+        final int[][] candidates;
+        final double[] joint = new double[MAX_CANDIDATES * MAX_CANDIDATES * MAX_CANDIDATES];
+        final boolean[] fillable = new boolean[3];
+        final double survive;
+        final long deadline;
+        final Map<Long, Double> memo = new HashMap<>();
+        int nodes;
+
+        Search(int[][] candidates, long hand, double survive, long deadline) {
+            this.candidates = candidates;
+            this.survive = Math.pow(survive, strategy.getRoundsPerSuggestion());
+            this.deadline = deadline;
+            for (int k = 0; k < 3; k++) {
+                fillable[k] = (hand & rules.typeBits(TYPES[k])) != 0L || candidates[k].length == 1;
+            }
+        }
+
+        void add(long envelope, double weight) {
+            int[] at = new int[3];
+            for (int k = 0; k < 3; k++) {
+                for (int i = 0; i < candidates[k].length; i++) {
+                    if ((envelope & (1L << candidates[k][i])) != 0L) {
+                        at[k] = i;
+                    }
+                }
+            }
+            joint[(at[0] * MAX_CANDIDATES + at[1]) * MAX_CANDIDATES + at[2]] += weight;
+        }
+
+        //a state is the three candidate masks, 8 bits each
+        int fullState() {
+            int state = 0;
+            for (int k = 0; k < 3; k++) {
+                state |= ((1 << candidates[k].length) - 1) << (8 * k);
+            }
+            return state;
+        }
+
+        double total(int state) {
+            double sum = 0;
+            for (int s = state & 0xff; s != 0; s &= s - 1) {
+                for (int w = (state >>> 8) & 0xff; w != 0; w &= w - 1) {
+                    for (int r = (state >>> 16) & 0xff; r != 0; r &= r - 1) {
+                        sum += joint[(Integer.numberOfTrailingZeros(s) * MAX_CANDIDATES
+                                + Integer.numberOfTrailingZeros(w)) * MAX_CANDIDATES
+                                + Integer.numberOfTrailingZeros(r)];
+                    }
+                }
+            }
+            return sum;
+        }
+
+        double largest(int state) {
+            double best = 0;
+            for (int s = state & 0xff; s != 0; s &= s - 1) {
+                for (int w = (state >>> 8) & 0xff; w != 0; w &= w - 1) {
+                    for (int r = (state >>> 16) & 0xff; r != 0; r &= r - 1) {
+                        best = Math.max(best, joint[(Integer.numberOfTrailingZeros(s) * MAX_CANDIDATES
+                                + Integer.numberOfTrailingZeros(w)) * MAX_CANDIDATES
+                                + Integer.numberOfTrailingZeros(r)]);
+                    }
+                }
+            }
+            return best;
+        }
+
+        double accuseValue(int state) {
+            double total = total(state);
+            return total <= 0 ? 0 : largest(state) / total;
+        }
+
+        long best(int state) {
+            double best = -1;
+            long guess = 0L;
+            for (int s = state & 0xff; s != 0; s &= s - 1) {
+                for (int w = (state >>> 8) & 0xff; w != 0; w &= w - 1) {
+                    for (int r = (state >>> 16) & 0xff; r != 0; r &= r - 1) {
+                        int si = Integer.numberOfTrailingZeros(s);
+                        int wi = Integer.numberOfTrailingZeros(w);
+                        int ri = Integer.numberOfTrailingZeros(r);
+                        double p = joint[(si * MAX_CANDIDATES + wi) * MAX_CANDIDATES + ri];
+                        if (p > best) {
+                            best = p;
+                            guess = (1L << candidates[0][si]) | (1L << candidates[1][wi]) | (1L << candidates[2][ri]);
+                        }
+                    }
+                }
+            }
+            return guess;
+        }
+
+        /**
+         * Best chance of winning from the state with the turns left,
+         * accusing or suggesting on, NaN once out of time.
+         */
+        double value(int state, int turns) {
+            double accuse = accuseValue(state);
+            if (turns == 0 || accuse >= 1) {
+                return accuse;
+            }
+            double wait = waitValue(state, turns);
+            return Double.isNaN(wait) ? wait : Math.max(accuse, wait);
+        }
+
+        /**
+         * Chance of winning when suggesting first.
+         */
+        double waitValue(int state, int turns) {
+            long key = ((long) turns << 32) | state;
+            Double cached = memo.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            if ((++nodes & 0xff) == 0 && System.nanoTime() > deadline) {
+                return Double.NaN;
+            }
+            double total = total(state);
+            double best = 0;
+            //-1 names a filler, otherwise the index of the candidate
+            for (int s = fillable[0] ? -1 : 0; s < candidates[0].length; s++) {
+                if (!named(state, 0, s)) {
+                    continue;
+                }
+                for (int w = fillable[1] ? -1 : 0; w < candidates[1].length; w++) {
+                    if (!named(state, 1, w)) {
+                        continue;
+                    }
+                    for (int r = fillable[2] ? -1 : 0; r < candidates[2].length; r++) {
+                        if (!named(state, 2, r) || (s == -1 && w == -1 && r == -1)) {
+                            continue;
+                        }
+                        double value = suggest(state, total, new int[]{s, w, r}, turns);
+                        if (Double.isNaN(value)) {
+                            return value;
+                        }
+                        best = Math.max(best, value);
+                    }
+                }
+            }
+            best *= survive;
+            memo.put(key, best);
+            return best;
+        }
+
+        private boolean named(int state, int k, int i) {
+            return i == -1 || (state & (1 << (8 * k + i))) != 0;
+        }
+
+        private double suggest(int state, double total, int[] named, int turns) {
+            double value = 0;
+            int inside = state;
+            for (int k = 0; k < 3; k++) {
+                if (named[k] == -1) {
+                    continue;
+                }
+                int bit = 1 << (8 * k + named[k]);
+                //shown: the earlier named are in the envelope, this one is not
+                int shown = inside & ~bit;
+                if (shown != inside) {
+                    double p = total(shown) / total;
+                    if (p > 0) {
+                        double v = value(shown, turns - 1);
+                        if (Double.isNaN(v)) {
+                            return v;
+                        }
+                        value += p * v;
+                    }
+                }
+                inside = (inside & ~(0xff << (8 * k))) | bit;
+            }
+            double p = total(inside) / total;
+            if (p > 0) {
+                double v = value(inside, turns - 1);
+                if (Double.isNaN(v)) {
+                    return v;
+                }
+                value += p * v;
+            }
+            return value;
+        }
+    }
+
+}
@@ -0,0 +1,409 @@
+package gdx.clue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Exact envelope probabilities by counting every deal that agrees with a
+ * {@link Deduction}. The unknown cards are placed one at a time and deals are
+ * merged on what is left to decide: the remaining capacity of each hand,
+ * which envelope categories are filled and which open "showed one of these"
+ * facts are already satisfied. A forward pass counts the ways into each state
+ * and a backward pass the ways out, giving every card's envelope marginal.
+ *
+ * The state count is estimated up front with {@link #getCost()} so callers
+ * can fall back to sampling when counting would be too slow.
+ */
+public class EnvelopeCounter {
+
+    /**
+     * Costs up to this are counted exactly by {@link Reasoner} and
+     * {@link EndgameSolver}. Counts this large take a few milliseconds,
+     * about what the sampler is given, and these are the states where
+     * sampling is least accurate.
+     */
+    public static final long EXACT_COST_LIMIT = 1L << 20;
+
+    private static final int CAPACITY_BITS = 4;
+
+    private final Rules rules;
+    private final int version;
+    private final int players;
+    private final long envelopeKnown;
+    private final long unknown;
+    private final long[] has;
+
+    //unknown cards in placement order
+    private final int[] cards;
+    private final long[] seatAllowed;
+    private final boolean[] envelopeAllowed;
+    private final long[] categoryFlag;
+    private final long[][] satisfies;
+    private final long[] closes;
+
+    private final long initial;
+    private final long complete;
+    private final long cost;
+
+    public EnvelopeCounter(Deduction d) {
+        this.rules = d.getRules();
+        this.version = d.getVersion();
+        this.players = d.getPlayerCount();
+        this.envelopeKnown = d.getEnvelope();
+
+        this.has = new long[players];
+        long owned = 0L;
+        for (int s = 0; s < players; s++) {
+            has[s] = d.getHas(s);
+            owned |= has[s];
+        }
+        this.unknown = rules.allBits() & ~owned & ~envelopeKnown;
+
+        int n = Long.bitCount(unknown);
+        cards = new int[n];
+        int[] position = new int[rules.total()];
+        int k = 0;
+        for (long b = unknown; b != 0L; b &= b - 1) {
+            cards[k] = Long.numberOfTrailingZeros(b);
+            position[cards[k]] = k;
+            k++;
+        }
+
+        int flagShift = CAPACITY_BITS * players;
+        long state = 0L;
+        long statesBound = 1L;
+        boolean possible = d.isConsistent();
+        for (int s = 0; s < players; s++) {
+            int capacity = d.getHandSize(s) - Long.bitCount(d.getHas(s));
+            if (capacity < 0 || capacity >= 1 << CAPACITY_BITS) {
+                possible = false;
+                capacity = 0;
+            }
+            state |= (long) capacity << (CAPACITY_BITS * s);
+            statesBound *= capacity + 1;
+        }
+        for (int type = Card.TYPE_SUSPECT; type <= Card.TYPE_ROOM; type++) {
+            if ((envelopeKnown & rules.typeBits(type)) != 0L) {
+                state |= 1L << (flagShift + type);
+            }
+        }
+
+        seatAllowed = new long[n];
+        envelopeAllowed = new boolean[n];
+        categoryFlag = new long[n];
+        for (k = 0; k < n; k++) {
+            long bit = 1L << cards[k];
+            for (int s = 0; s < players; s++) {
+                if ((d.getHasNot(s) & bit) == 0L) {
+                    seatAllowed[k] |= 1L << s;
+                }
+            }
+            int type = rules.typeOf(cards[k]);
+            categoryFlag[k] = 1L << (flagShift + type);
+            envelopeAllowed[k] = (d.getNotEnvelope() & bit) == 0L;
+        }
+
+        //open facts as card position intervals, sharing state bits between
+        //facts that are never open at the same time
+        List<long[]> open = new ArrayList<>();
+        for (int i = 0; i < d.getClauseCount(); i++) {
+            int seat = d.getClauseSeat(i);
+            long c = d.getClauseCards(i);
+            if ((d.getHas(seat) & c) != 0L) {
+                continue;
+            }
+            long m = c & unknown & ~d.getHasNot(seat);
+            if (m == 0L) {
+                possible = false;
+                continue;
+            }
+            boolean duplicate = false;
+            for (long[] o : open) {
+                duplicate |= o[0] == seat && o[1] == m;
+            }
+            if (!duplicate) {
+                open.add(new long[]{seat, m});
+            }
+        }
+        open.sort((a, b) -> Integer.compare(
+                position[Long.numberOfTrailingZeros(a[1])],
+                position[Long.numberOfTrailingZeros(b[1])]));
+
+        satisfies = new long[n][players];
+        closes = new long[n];
+        int slotShift = flagShift + 3;
+        int[] freeAt = new int[64 - slotShift];
+        Arrays.fill(freeAt, -1);
+        int slotsUsed = 0;
+        for (long[] o : open) {
+            int seat = (int) o[0];
+            int first = position[Long.numberOfTrailingZeros(o[1])];
+            int last = position[63 - Long.numberOfLeadingZeros(o[1])];
+            int slot = -1;
+            for (int i = 0; i < freeAt.length && slot == -1; i++) {
+                if (freeAt[i] < first) {
+                    slot = i;
+                }
+            }
+            if (slot == -1) {
+                possible = false;
+                break;
+            }
+            freeAt[slot] = last;
+            slotsUsed = Math.max(slotsUsed, slot + 1);
+            long slotBit = 1L << (slotShift + slot);
+            for (long b = o[1]; b != 0L; b &= b - 1) {
+                satisfies[position[Long.numberOfTrailingZeros(b)]][seat] |= slotBit;
+            }
+            closes[last] |= slotBit;
+        }
+
+        this.initial = state;
+        this.complete = 7L << flagShift;
+        this.cost = possible ? Math.max(1L, statesBound * 8L) << slotsUsed : Long.MAX_VALUE;
+    }
+
+    /**
+     * Upper bound on the number of distinct states of a single placement
+     * step, {@link Long#MAX_VALUE} if counting is not possible.
+     */
+    public long getCost() {
+        return cost;
+    }
+
+    private long next(long state, int k, int holder) {
+        if (holder == players) {
+            if (!envelopeAllowed[k] || (state & categoryFlag[k]) != 0L) {
+                return -1;
+            }
+            state |= categoryFlag[k];
+        } else {
+            if ((seatAllowed[k] & (1L << holder)) == 0L
+                    || ((state >>> (CAPACITY_BITS * holder)) & ((1 << CAPACITY_BITS) - 1)) == 0L) {
+                return -1;
+            }
+            state -= 1L << (CAPACITY_BITS * holder);
+            state |= satisfies[k][holder];
+        }
+        if ((state & closes[k]) != closes[k]) {
+            return -1;
+        }
+        return state & ~closes[k];
+    }
+
+    /**
+     * Counts the consistent deals and keeps up to the given number of them,
+     * drawn uniformly. Returns null if no deal is consistent.
+     */
+    public EnvelopeEstimate count(GameRandom random, int keptDeals) {
+        int n = cards.length;
+
+        StateTable[] layers = new StateTable[n + 1];
+        layers[0] = new StateTable(4);
+        layers[0].add(initial, 1.0);
+        for (int k = 0; k < n; k++) {
+            StateTable from = layers[k];
+            StateTable to = new StateTable(from.size * 2);
+            for (int i = 0; i < from.keys.length; i++) {
+                if (from.used[i]) {
+                    for (int h = 0; h <= players; h++) {
+                        long s = next(from.keys[i], k, h);
+                        if (s != -1) {
+                            to.add(s, from.ways[i]);
+                        }
+                    }
+                }
+            }
+            layers[k + 1] = to;
+        }
+
+        //reuse the forward tables for the ways out of each state
+        double[] inEnvelope = new double[n];
+        StateTable last = layers[n];
+        for (int i = 0; i < last.keys.length; i++) {
+            last.out[i] = last.used[i] && last.keys[i] == complete ? 1.0 : 0.0;
+        }
+        for (int k = n - 1; k >= 0; k--) {
+            StateTable from = layers[k];
+            StateTable to = layers[k + 1];
+            for (int i = 0; i < from.keys.length; i++) {
+                if (from.used[i]) {
+                    double ways = 0;
+                    for (int h = 0; h <= players; h++) {
+                        long s = next(from.keys[i], k, h);
+                        if (s != -1) {
+                            double w = to.out(s);
+                            ways += w;
+                            if (h == players) {
+                                inEnvelope[k] += from.ways[i] * w;
+                            }
+                        }
+                    }
+                    from.out[i] = ways;
+                }
+            }
+        }
+
+        double total = layers[0].out(initial);
+        if (total <= 0) {
+            return null;
+        }
+
+        double[] probabilities = new double[rules.total()];
+        for (long b = envelopeKnown; b != 0L; b &= b - 1) {
+            probabilities[Long.numberOfTrailingZeros(b)] = 1.0;
+        }
+        for (int k = 0; k < n; k++) {
+            probabilities[cards[k]] = inEnvelope[k] / total;
+        }
+
+        byte[][] deals = new byte[keptDeals][];
+        double[] weights = new double[keptDeals];
+        double[] choice = new double[players + 1];
+        for (int i = 0; i < keptDeals; i++) {
+            byte[] deal = new byte[rules.total()];
+            Arrays.fill(deal, EnvelopeEstimate.ENVELOPE);
+            for (int s = 0; s < players; s++) {
+                for (long h = has[s]; h != 0L; h &= h - 1) {
+                    deal[Long.numberOfTrailingZeros(h)] = (byte) s;
+                }
+            }
+            long state = initial;
+            for (int k = 0; k < n; k++) {
+                double sum = 0;
+                for (int h = 0; h <= players; h++) {
+                    long s = next(state, k, h);
+                    choice[h] = s == -1 ? 0 : layers[k + 1].out(s);
+                    sum += choice[h];
+                }
+                double r = random.nextDouble() * sum;
+                int holder = players;
+                for (int h = 0; h <= players; h++) {
+                    if (choice[h] > 0) {
+                        holder = h;
+                        r -= choice[h];
+                        if (r < 0) {
+                            break;
+                        }
+                    }
+                }
+                state = next(state, k, holder);
+                deal[cards[k]] = holder == players ? EnvelopeEstimate.ENVELOPE : (byte) holder;
+            }
+            deals[i] = deal;
+            weights[i] = 1.0;
+        }
+
+        return new EnvelopeEstimate(rules, version, probabilities, true, 0, deals, weights);
+    }
+
+    /**
+     * Counts the consistent deals with exactly the given cards in the
+     * envelope, each weighted by the tracker's factors for where its unknown
+     * cards went, or counted once without a tracker. 0 if the envelope is
+     * not possible.
+     */
+    public double countDeals(long envelope, HoldingTracker tracker) {
+        if (cost == Long.MAX_VALUE || (envelopeKnown & ~envelope) != 0L
+                || (envelope & ~unknown & ~envelopeKnown) != 0L) {
+            return 0;
+        }
+        int n = cards.length;
+        StateTable from = new StateTable(4);
+        from.add(initial, 1.0);
+        for (int k = 0; k < n; k++) {
+            StateTable to = new StateTable(from.size * 2);
+            //envelope cards may only go to the envelope, the rest only to hands
+            boolean inEnvelope = (envelope & (1L << cards[k])) != 0L;
+            int first = inEnvelope ? players : 0;
+            int last = inEnvelope ? players : players - 1;
+            for (int i = 0; i < from.keys.length; i++) {
+                if (from.used[i]) {
+                    for (int h = first; h <= last; h++) {
+                        long s = next(from.keys[i], k, h);
+                        if (s != -1) {
+                            double factor = tracker == null || h == players ? 1.0 : tracker.getSuggestedFactor(h, cards[k]);
+                            to.add(s, from.ways[i] * factor);
+                        }
+                    }
+                }
+            }
+            from = to;
+        }
+        return from.ways(complete);
+    }
+
+    /**
+     * Open addressing table of the states after one placement step, with the
+     * ways into and out of each.
+     */
+    private static class StateTable {
+
+        long[] keys;
+        boolean[] used;
+        double[] ways;
+        double[] out;
+        int size;
+
+        StateTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1;
+            keys = new long[capacity];
+            used = new boolean[capacity];
+            ways = new double[capacity];
+            out = new double[capacity];
+        }
+
+        private int slot(long key) {
+            int mask = keys.length - 1;
+            int i = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+            while (used[i] && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        void add(long key, double w) {
+            int i = slot(key);
+            if (!used[i]) {
+                if ((size + 1) * 2 > keys.length) {
+                    grow();
+                    i = slot(key);
+                }
+                used[i] = true;
+                keys[i] = key;
+                size++;
+            }
+            ways[i] += w;
+        }
+
+        double ways(long key) {
+            int i = slot(key);
+            return used[i] ? ways[i] : 0.0;
+        }
+
+        double out(long key) {
+            int i = slot(key);
+            return used[i] ? out[i] : 0.0;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            boolean[] oldUsed = used;
+            double[] oldWays = ways;
+            keys = new long[oldKeys.length * 2];
+            used = new boolean[keys.length];
+            ways = new double[keys.length];
+            out = new double[keys.length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    int j = slot(oldKeys[i]);
+                    used[j] = true;
+                    keys[j] = oldKeys[i];
+                    ways[j] = oldWays[i];
+                }
+            }
+        }
+    }
+
+}
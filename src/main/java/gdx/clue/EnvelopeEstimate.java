@@ -0,0 +1,110 @@
+package gdx.clue;
+
+/**
+ * Probability of every card being in the envelope, given what one player
+ * knows. Produced by {@link EnvelopeEstimator}, optionally keeping the
+ * weighted deals it was computed from.
+ */
+public class EnvelopeEstimate {
+
+    /**
+     * Holder value of an envelope card in {@link #getDeal(int)}.
+     */
+    public static final byte ENVELOPE = -1;
+
+    private final Rules rules;
+    private final int version;
+    private final double[] probabilities;
+    private final boolean exact;
+    private final long attempts;
+    private final byte[][] deals;
+    private final double[] weights;
+
+    public EnvelopeEstimate(Rules rules, int version, double[] probabilities, boolean exact, long attempts, byte[][] deals, double[] weights) {
+        this.rules = rules;
+        this.version = version;
+        this.probabilities = probabilities;
+        this.exact = exact;
+        this.attempts = attempts;
+        this.deals = deals;
+        this.weights = weights;
+    }
+
+    public Rules getRules() {
+        return rules;
+    }
+
+    /**
+     * Knowledge version of the {@link Deduction} this was computed from.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public double getProbability(int ordinal) {
+        return probabilities[ordinal];
+    }
+
+    public double getProbability(Card card) {
+        return probabilities[card.ordinal()];
+    }
+
+    /**
+     * True when computed by counting rather than sampling.
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Number of sampled deals tried, 0 for exact estimates.
+     */
+    public long getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * The most likely card of the type among the candidates.
+     */
+    public Card getMostLikely(int type, long candidates) {
+        Card best = null;
+        double bestP = -1;
+        for (long b = candidates & rules.typeBits(type); b != 0L; b &= b - 1) {
+            int ordinal = Long.numberOfTrailingZeros(b);
+            if (probabilities[ordinal] > bestP) {
+                bestP = probabilities[ordinal];
+                best = rules.card(ordinal);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Number of retained weighted deals.
+     */
+    public int getDealCount() {
+        return deals == null ? 0 : deals.length;
+    }
+
+    /**
+     * A retained deal as the holding seat of each card ordinal, or
+     * {@link #ENVELOPE}.
+     */
+    public byte[] getDeal(int i) {
+        return deals[i];
+    }
+
+    public double getWeight(int i) {
+        return weights[i];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < rules.total(); i++) {
+            sb.append(rules.card(i)).append(String.format("\t%.3f\n", probabilities[i]));
+        }
+        return sb.toString();
+    }
+
+}
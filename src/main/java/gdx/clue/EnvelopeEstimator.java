@@ -0,0 +1,369 @@
+package gdx.clue;
+
+import static gdx.clue.Card.TYPE_ROOM;
+import static gdx.clue.Card.TYPE_SUSPECT;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Estimates the envelope probabilities of one player by sampling deals that
+ * agree with everything recorded in their {@link Deduction}. The deals are
+ * built by sequential importance sampling: envelope cards first, then every
+ * unknown card goes to a seat that may still hold it, picked in proportion
+ * to the seat's free slots, and deals that break a "showed one of these"
+ * fact are rejected. The importance weights
+ * make the result the uniform posterior over the consistent deals.
+ *
+ * Sampling is split over the fork join pool, each task drawing from its own
+ * split random stream, and stops at the time budget. Without a budget,
+ * {@link #NO_DEADLINE}, the samples alone bound it and the estimate only
+ * depends on the random stream. The last estimate is kept until the
+ * knowledge version changes.
+ */
+public class EnvelopeEstimator {
+
+    public static final int DEFAULT_SAMPLES = 20000;
+    public static final long DEFAULT_BUDGET_NANOS = 5000000L;
+    public static final int DEFAULT_KEPT_DEALS = 512;
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private static final int LEAF_SAMPLES = 1024;
+
+    private final ForkJoinPool pool;
+    private int samples = DEFAULT_SAMPLES;
+    private long budgetNanos = DEFAULT_BUDGET_NANOS;
+    private int keptDeals = DEFAULT_KEPT_DEALS;
+
+    private Deduction cachedFor;
+    private EnvelopeEstimate cached;
+
+    public EnvelopeEstimator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public EnvelopeEstimator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public void setSamples(int samples) {
+        this.samples = samples;
+    }
+
+    public void setBudgetNanos(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+    }
+
+    public void setKeptDeals(int keptDeals) {
+        this.keptDeals = keptDeals;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    public int getKeptDeals() {
+        return keptDeals;
+    }
+
+    /**
+     * Returns the cached estimate if the knowledge has not changed since it
+     * was computed, otherwise samples a new one within the time budget.
+     */
+    public synchronized EnvelopeEstimate estimate(Deduction deduction, GameRandom random) {
+        if (cached != null && cachedFor == deduction && cached.getVersion() == deduction.getVersion()) {
+            return cached;
+        }
+        long deadline = budgetNanos == NO_DEADLINE ? NO_DEADLINE : System.nanoTime() + budgetNanos;
+        cached = sample(deduction.copy(), random.split(), samples, keptDeals, deadline);
+        cachedFor = deduction;
+        return cached;
+    }
+
+    /**
+     * Samples an estimate without caching.
+     */
+    public EnvelopeEstimate sample(Deduction snapshot, GameRandom random, int samples, int keptDeals, long deadline) {
+        Sampler sampler = new Sampler(snapshot);
+        Partial result = pool.invoke(new SampleTask(sampler, random, samples, keptDeals, deadline));
+
+        Rules rules = snapshot.getRules();
+        double[] probabilities = new double[rules.total()];
+        if (result.total > 0) {
+            for (int i = 0; i < probabilities.length; i++) {
+                probabilities[i] = result.envelope[i] / result.total;
+            }
+        } else {
+            //nothing consistent was found in time, spread over the candidates
+            for (int type = TYPE_SUSPECT; type <= TYPE_ROOM; type++) {
+                long candidates = snapshot.getEnvelopeCandidates(type);
+                int count = Long.bitCount(candidates);
+                for (long b = candidates; b != 0L; b &= b - 1) {
+                    probabilities[Long.numberOfTrailingZeros(b)] = 1.0 / count;
+                }
+            }
+        }
+
+        byte[][] deals = result.deals.toArray(new byte[result.deals.size()][]);
+        double[] weights = Arrays.copyOf(result.weights, deals.length);
+
+        return new EnvelopeEstimate(rules, snapshot.getVersion(), probabilities, false, result.attempts, deals, weights);
+    }
+
+    /**
+     * Draws single weighted deals from a fixed knowledge state. Read only
+     * after construction, shared by all the sampling tasks.
+     */
+    static class Sampler {
+
+        final Rules rules;
+        final int players;
+        final long[] has;
+        final long[] hasNot;
+        final int[] capacity;
+        final long[] envelopeCandidates = new long[3];
+        final long envelopeKnown;
+        final long unknown;
+        //unknown cards, those fewest seats can hold first
+        final int[] order;
+        final int[] clauseSeats;
+        final long[] clauseCards;
+        //cards that could still satisfy each fact
+        final long[] clausePossible;
+
+        Sampler(Deduction d) {
+            rules = d.getRules();
+            players = d.getPlayerCount();
+            has = new long[players];
+            hasNot = new long[players];
+            capacity = new int[players];
+            long owned = 0L;
+            for (int s = 0; s < players; s++) {
+                has[s] = d.getHas(s);
+                hasNot[s] = d.getHasNot(s);
+                capacity[s] = d.getHandSize(s) - Long.bitCount(has[s]);
+                owned |= has[s];
+            }
+            envelopeKnown = d.getEnvelope();
+            for (int type = TYPE_SUSPECT; type <= TYPE_ROOM; type++) {
+                long known = envelopeKnown & rules.typeBits(type);
+                envelopeCandidates[type] = known != 0L ? known : d.getEnvelopeCandidates(type) & ~owned;
+            }
+            unknown = rules.allBits() & ~owned & ~envelopeKnown;
+            order = new int[Long.bitCount(unknown)];
+            int[] seats = new int[rules.total()];
+            int k = 0;
+            for (long b = unknown; b != 0L; b &= b - 1) {
+                int card = Long.numberOfTrailingZeros(b);
+                for (int s = 0; s < players; s++) {
+                    if ((hasNot[s] & (1L << card)) == 0L) {
+                        seats[card]++;
+                    }
+                }
+                //insertion sort, stable on the card order
+                int at = k++;
+                while (at > 0 && seats[order[at - 1]] > seats[card]) {
+                    order[at] = order[at - 1];
+                    at--;
+                }
+                order[at] = card;
+            }
+            clauseSeats = new int[d.getClauseCount()];
+            clauseCards = new long[d.getClauseCount()];
+            clausePossible = new long[d.getClauseCount()];
+            for (int i = 0; i < clauseSeats.length; i++) {
+                clauseSeats[i] = d.getClauseSeat(i);
+                clauseCards[i] = d.getClauseCards(i);
+                clausePossible[i] = clauseCards[i] & unknown & ~hasNot[clauseSeats[i]];
+            }
+        }
+
+        /**
+         * Fills the deal with the holder of every card and returns its
+         * importance weight, 0 if the attempt was rejected.
+         */
+        double draw(GameRandom random, byte[] deal, long[] hands, int[] left, int[] options) {
+            double weight = 1.0;
+            long envelope = 0L;
+            for (int type = TYPE_SUSPECT; type <= TYPE_ROOM; type++) {
+                long c = envelopeCandidates[type];
+                int count = Long.bitCount(c);
+                if (count == 0) {
+                    return 0;
+                }
+                envelope |= CardSet.nthBit(c, random.nextInt(count));
+                weight *= count;
+            }
+
+            for (int i = 0; i < clauseSeats.length; i++) {
+                if ((clausePossible[i] & ~envelope) == 0L) {
+                    return 0;
+                }
+            }
+
+            for (int s = 0; s < players; s++) {
+                hands[s] = has[s];
+                left[s] = capacity[s];
+            }
+
+            //each card goes to a seat in proportion to its free slots, which
+            //keeps the weights even when few seats are ruled out; the last
+            //card that can satisfy a fact goes to the fact's seat, the other
+            //choices could only end in a rejected deal
+            long unplaced = unknown & ~envelope;
+            for (int card : order) {
+                long bit = 1L << card;
+                if ((unplaced & bit) == 0L) {
+                    continue;
+                }
+                int forced = -1;
+                for (int i = 0; i < clauseSeats.length; i++) {
+                    int seat = clauseSeats[i];
+                    if ((clausePossible[i] & unplaced) == bit && (hands[seat] & clauseCards[i]) == 0L) {
+                        if (forced != -1 && forced != seat) {
+                            return 0;
+                        }
+                        forced = seat;
+                    }
+                }
+                int n = 0;
+                int free = 0;
+                for (int s = 0; s < players; s++) {
+                    if (left[s] > 0 && (hasNot[s] & bit) == 0L && (forced == -1 || forced == s)) {
+                        options[n++] = s;
+                        free += left[s];
+                    }
+                }
+                if (n == 0) {
+                    return 0;
+                }
+                int r = random.nextInt(free);
+                int s = options[0];
+                for (int i = 0; r >= left[s]; s = options[++i]) {
+                    r -= left[s];
+                }
+                weight *= (double) free / left[s];
+                hands[s] |= bit;
+                left[s]--;
+                unplaced &= ~bit;
+            }
+
+            for (int i = 0; i < clauseSeats.length; i++) {
+                if ((hands[clauseSeats[i]] & clauseCards[i]) == 0L) {
+                    return 0;
+                }
+            }
+
+            if (deal != null) {
+                for (int i = 0; i < rules.total(); i++) {
+                    deal[i] = EnvelopeEstimate.ENVELOPE;
+                }
+                for (int s = 0; s < players; s++) {
+                    for (long h = hands[s]; h != 0L; h &= h - 1) {
+                        deal[Long.numberOfTrailingZeros(h)] = (byte) s;
+                    }
+                }
+            }
+            return weight;
+        }
+    }
+
+    static class Partial {
+
+        final double[] envelope;
+        double total;
+        long attempts;
+        final List<byte[]> deals = new ArrayList<>();
+        //weights of the kept deals, in the same order
+        double[] weights;
+
+        Partial(int cards, int keptDeals) {
+            envelope = new double[cards];
+            weights = new double[keptDeals];
+        }
+
+        void add(Partial other) {
+            for (int i = 0; i < envelope.length; i++) {
+                envelope[i] += other.envelope[i];
+            }
+            total += other.total;
+            attempts += other.attempts;
+            int kept = deals.size();
+            weights = Arrays.copyOf(weights, kept + other.deals.size());
+            System.arraycopy(other.weights, 0, weights, kept, other.deals.size());
+            deals.addAll(other.deals);
+        }
+    }
+
+    static class SampleTask extends RecursiveTask<Partial> {
+
+        private static final long serialVersionUID = 1L;
+
+        final Sampler sampler;
+        final GameRandom random;
+        final int samples;
+        final int keptDeals;
+        final long deadline;
+
+        SampleTask(Sampler sampler, GameRandom random, int samples, int keptDeals, long deadline) {
+            this.sampler = sampler;
+            this.random = random;
+            this.samples = samples;
+            this.keptDeals = keptDeals;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (samples > LEAF_SAMPLES) {
+                int half = samples / 2;
+                SampleTask left = new SampleTask(sampler, random.split(), half, keptDeals / 2, deadline);
+                SampleTask right = new SampleTask(sampler, random, samples - half, keptDeals - keptDeals / 2, deadline);
+                left.fork();
+                Partial result = right.compute();
+                result.add(left.join());
+                return result;
+            }
+
+            int cards = sampler.rules.total();
+            Partial result = new Partial(cards, keptDeals);
+            byte[] deal = new byte[cards];
+            long[] hands = new long[sampler.players];
+            int[] left = new int[sampler.players];
+            int[] options = new int[sampler.players];
+
+            for (int i = 0; i < samples; i++) {
+                if ((i & 63) == 0 && System.nanoTime() > deadline) {
+                    break;
+                }
+                result.attempts++;
+                boolean keep = result.deals.size() < keptDeals;
+                double w = sampler.draw(random, keep ? deal : null, hands, left, options);
+                if (w == 0) {
+                    continue;
+                }
+                result.total += w;
+                //the envelope is whatever no hand received
+                long envelope = sampler.rules.allBits();
+                for (int s = 0; s < sampler.players; s++) {
+                    envelope &= ~hands[s];
+                }
+                for (long b = envelope; b != 0L; b &= b - 1) {
+                    result.envelope[Long.numberOfTrailingZeros(b)] += w;
+                }
+                if (keep) {
+                    result.weights[result.deals.size()] = w;
+                    result.deals.add(deal.clone());
+                }
+            }
+            return result;
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package gdx.clue;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The single source of randomness for a game: dice, deck shuffles and the
+ * computer player choices. A game is reproducible from its seed. An instance
+ * is not thread safe, each thread or parallel simulation takes its own
+ * independent stream with {@link #split()}.
+ */
+public class GameRandom {
+
+    private final long seed;
+    private final SplittableRandom random;
+
+    public GameRandom() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    public GameRandom(long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+    }
+
+    private GameRandom(SplittableRandom random) {
+        this.seed = 0L;
+        this.random = random;
+    }
+
+    /**
+     * Seed from the clue.seed system property when present, otherwise a
+     * random one.
+     */
+    public static GameRandom fromSystemProperty() {
+        Long seed = Long.getLong("clue.seed");
+        return seed != null ? new GameRandom(seed) : new GameRandom();
+    }
+
+    /**
+     * Returns a new generator whose stream is independent of this one.
+     */
+    public GameRandom split() {
+        return new GameRandom(random.split());
+    }
+
+    /**
+     * The seed this generator was created with, 0 for split generators.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    public long nextLong() {
+        return random.nextLong();
+    }
+
+    public double nextDouble() {
+        return random.nextDouble();
+    }
+
+    public <T> void shuffle(List<T> list) {
+        for (int i = list.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            list.set(i, list.set(j, list.get(i)));
+        }
+    }
+
+}
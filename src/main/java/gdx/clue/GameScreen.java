@@ -29,11 +29,16 @@ import static gdx.clue.ClueMain.SCREEN_DIM_HEIGHT;
 import gdx.clue.ClueMain.Suspect;
 import gdx.clue.astar.AStar;
 import gdx.clue.astar.Location;
+import gdx.clue.astar.Occupancy;
 import gdx.clue.astar.PathFinder;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class GameScreen implements Screen, InputProcessor {
 
@@ -44,6 +49,8 @@ public class GameScreen implements Screen, InputProcessor {
     private final Clue game;
     private final ClueMap map;
     private final PathFinder<Location> pathfinder;
+    //only used on the turn worker, the render thread has its own
+    private final PathFinder<Location> turnPathfinder = new AStar<>();
 
     private int index;
     private Player currentTurnPlayer;
@@ -59,6 +66,27 @@ public class GameScreen implements Screen, InputProcessor {
     private final MainPanel mainPanel;
     private final LogScrollPane logPanel = new LogScrollPane(new Table());
     private final ShowCardsRoutine showCards;
+    private final SuggestionChooser suggestionChooser = new SuggestionChooser();
+    private final EndgameSolver endgameSolver;
+
+    //tree search workers shared by the computer players, one tree each
+    private static final int SEARCH_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private final ExecutorService searchWorkers = Executors.newFixedThreadPool(SEARCH_THREADS, r -> {
+        Thread t = new Thread(r, "clue-search");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<Player, IsmctsSearch> searches = new HashMap<>();
+    private final Zobrist zobrist;
+    private final TranspositionTable decisions = new TranspositionTable();
+    private final OpeningBook openingBook;
+
+    //computer turns are decided here, off the render thread
+    private final ExecutorService turnWorker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "clue-turn");
+        t.setDaemon(true);
+        return t;
+    });
 
     public static final int ACTION_VALID_ACCUSATION = 200;
     public static final int ACTION_INVALID_ACCUSATION = 500;
@@ -67,15 +95,21 @@ public class GameScreen implements Screen, InputProcessor {
     public static final int ACTION_ROLLED_DICE = 320;
 
     private boolean gameOver;
+    private Difficulty difficulty = Difficulty.NORMAL;
+    private final StrategyParameters strategy;
 
-    public GameScreen() {
-        game = new Clue();
+    public GameScreen(GameRandom random, StrategyParameters strategy) {
+        this.strategy = strategy;
+        game = new Clue(random);
         map = new ClueMap();
+        zobrist = new Zobrist(game.getRules(), map.getBoard());
+        openingBook = OpeningBook.load(map.getBoard(), OpeningBook.RESOURCE);
+        endgameSolver = new EndgameSolver(game.getRules(), strategy);
         pathfinder = new AStar<>();
         stage = new Stage(viewport);
         batch = new SpriteBatch();
         input = new InputMultiplexer(this, stage);
-        playerIconPlacement = new RoomIconPlacement();
+        playerIconPlacement = new RoomIconPlacement(game.getRules());
         mainPanel = new MainPanel(stage, this);
         showCards = new ShowCardsRoutine(this);
 
@@ -155,6 +189,17 @@ public class GameScreen implements Screen, InputProcessor {
         return showCards;
     }
 
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * The difficulty of the computer players, applied when the game starts.
+     */
+    public void setDifficulty(Difficulty difficulty) {
+        this.difficulty = difficulty;
+    }
+
     public Player getYourPlayer() {
         return yourPlayer;
     }
@@ -165,15 +210,19 @@ public class GameScreen implements Screen, InputProcessor {
 
     public int rollDice() {
 
-        int roll1 = ClueMain.DICE.roll();
-        int roll2 = ClueMain.DICE.roll();
+        int roll1 = ClueMain.DICE.roll(game.getRandom());
+        int roll2 = ClueMain.DICE.roll(game.getRandom());
+        showDice(roll1, roll2);
+
+        return roll1 + roll2;
+
+    }
+
+    private void showDice(int roll1, int roll2) {
         Sounds.play(Sound.DICE);
 
         rolledDiceImageLeft = ClueMain.DICE_TEXTURES[0][roll1 - 1];
         rolledDiceImageRight = ClueMain.DICE_TEXTURES[0][roll2 - 1];
-
-        return roll1 + roll2;
-
     }
 
     @Override
@@ -196,7 +245,7 @@ public class GameScreen implements Screen, InputProcessor {
                 Location t = map.getLocation(i, j);
                 if (t.getBlocked()) {
                     //nothing
-                } else if (t.getHighlighted()) {
+                } else if (map.isHighlighted(t)) {
                     batch.draw(ClueMain.TILE_DARK_GREEN, TILE_DIM * 8 + i * TILE_DIM, SCREEN_DIM_HEIGHT - j * TILE_DIM - TILE_DIM);
                 } else if (t.isRoom()) {
                     batch.draw(ClueMain.TILE_BROWN, TILE_DIM * 8 + i * TILE_DIM, SCREEN_DIM_HEIGHT - j * TILE_DIM - TILE_DIM);
@@ -270,7 +319,7 @@ public class GameScreen implements Screen, InputProcessor {
                 0);
 
         Location loc = map.getLocation((int) gridPos.x, (int) gridPos.y);
-        if (loc != null && currentTurnPlayer == yourPlayer && loc.getHighlighted() && !loc.equals(yourPlayer.getLocation())) {
+        if (loc != null && currentTurnPlayer == yourPlayer && map.isHighlighted(loc) && !loc.equals(yourPlayer.getLocation())) {
             map.resetHighlights();
             setPlayerLocationFromMapClick(currentTurnPlayer, loc);
             ClueMain.END_BUTTON.setVisible(true);
@@ -300,11 +349,8 @@ public class GameScreen implements Screen, InputProcessor {
     }
 
     public Player nextPlayer() {
-        this.index++;
-        if (this.index >= this.game.getPlayers().size()) {
-            this.index = 0;
-        }
-        Player player = this.game.getPlayers().get(this.index);
+        this.index = this.game.nextSeat(this.index);
+        Player player = this.game.getPlayerAtSeat(this.index);
         setCurrentPlayer(player);
         return player;
     }
@@ -325,7 +371,7 @@ public class GameScreen implements Screen, InputProcessor {
     public void setPlayerLocationFromMapClick(Player player, Location location) {
         playerIconPlacement.removePlayerIcon(player.getSuspect().id());
         playerIconPlacement.addPlayerIcon(location.getRoomId(), player.getSuspect().id());
-        player.setLocation(location);
+        player.setLocation(location, map.getOccupancy());
 
         int x = TILE_DIM * 8 + location.getX() * TILE_DIM;
         int y = SCREEN_DIM_HEIGHT - TILE_DIM * location.getY() - TILE_DIM;
@@ -424,7 +470,7 @@ public class GameScreen implements Screen, InputProcessor {
                     return;
                 }
 
-                SuggestionDialog sg = new SuggestionDialog(showCards, GameScreen.this, yourPlayer, new Card(TYPE_ROOM, room_id));
+                SuggestionDialog sg = new SuggestionDialog(showCards, GameScreen.this, yourPlayer, Card.of(TYPE_ROOM, room_id));
                 sg.show(stage);
             }
 
@@ -433,17 +479,29 @@ public class GameScreen implements Screen, InputProcessor {
 
     public void startGame() {
 
+        Gdx.app.log("game", "start, seed " + this.game.getRandom().getSeed());
+        Gdx.app.debug("strategy", strategy.toString());
+
         this.game.createDeck();
         this.game.dealShuffledDeck();
+        this.suggestionChooser.setBudgetNanos(difficulty.getSuggestionBudgetNanos());
+        this.endgameSolver.setBudgetNanos(difficulty.getEndgameBudgetNanos());
 
         for (int i = 0; i < this.game.getPlayers().size(); i++) {
             Player player = this.game.getPlayers().get(i);
 
-            Notebook book = new Notebook(player);
+            Notebook book = new Notebook(player, this.game.getRules(), this.game.getCurrentPlayerCount(), strategy);
             player.setNotebook(book);
+            if (player.isComputerPlayer()) {
+                difficulty.configure(book.getReasoner());
+                IsmctsSearch search = new IsmctsSearch(this.game.getRules(), this.map.getBoard(), searchWorkers,
+                        Math.min(SEARCH_THREADS, difficulty.getSearchThreads()));
+                search.setBudgetNanos(difficulty.getSearchBudgetNanos());
+                searches.put(player, search);
+            }
 
             Suspect sus = player.getSuspect();
-            player.setLocation(this.map.getLocation(sus.startX(), sus.startY()));
+            player.setLocation(this.map.getLocation(sus.startX(), sus.startY()), this.map.getOccupancy());
 
             Actor actor = new PlayerDotActor(player);
             player.setStageActor(actor);
@@ -466,30 +524,18 @@ public class GameScreen implements Screen, InputProcessor {
 
         if (player.isComputerPlayer()) {
 
-            Location startingLocation = player.getLocation();
-
-            Card currentRoomCard = startingLocation.isRoom() ? new Card(TYPE_ROOM, startingLocation.getRoomId()) : null;
-
-            //make a suggestion if the room they are in is not toggled and they did not just enter into a room
-            if (startingLocation.isRoom() && !player.getNotebook().isLocationCardInHandOrToggled(currentRoomCard)) {
-                makeSuggestionComputerPlayer(player);
-            } else {
-
-                if (startingLocation.isRoom() && player.getNotebook().isLocationCardInHandOrToggled(currentRoomCard)) {
-                    Sounds.play(Sound.HMM);
-                    //indicates maybe your player should pay attention that this room 
-                    //is in their hand and you may be able to mark it off in your notebook
-                    //but you don't know if the card that was shown was a room card earlier so its not a sure thing
-                    addMessage(player.getSuspect().title() + " is leaving the " + currentRoomCard, player.getSuspect().color());
+            //worked out on the turn worker so the window keeps drawing,
+            //then played here on the render thread
+            ComputerTurn computerTurn = new ComputerTurn(player);
+            turnWorker.execute(() -> {
+                try {
+                    computerTurn.decide();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    computerTurn.fallback();
                 }
-
-                //move them
-                Location newLocation = getNextComputerPlayerLocation(player);
-                
-                this.map.resetHighlights();
-            }
-
-            ClueMain.END_BUTTON.setVisible(true);
+                Gdx.app.postRunnable(computerTurn::play);
+            });
 
         } else {
 
@@ -504,104 +550,391 @@ public class GameScreen implements Screen, InputProcessor {
 
     }
 
-    private Location getNextComputerPlayerLocation(Player player) {
+    /**
+     * A computer player's turn. Created on the render thread with a snapshot
+     * of what the decision needs, decided on the turn worker and played back
+     * on the render thread. The worker only reads the snapshot: a copy of
+     * the notebook, of the history and of the occupied tiles, so the dice,
+     * the reachable tiles and the destination are worked out there too and
+     * the render thread is left with moving the token.
+     */
+    private class ComputerTurn {
+
+        final Player player;
+        final Location location;
+        final Location[] positions;
+        final long hand;
+        final SuggestionHistory history;
+        final int playerCount;
+        final GameRandom random;
+        final Notebook notes;
+        final Occupancy occupancy;
+
+        List<Card> accusation;
+        List<Card> suggestion;
+        List<Location> destinations;
+        boolean leaving;
+        boolean hmm;
+        boolean opening;
+        int roll1;
+        int roll2;
+        List<Location> reachable = Collections.emptyList();
+        Location destination;
+
+        ComputerTurn(Player player) {
+            this.player = player;
+            this.location = player.getLocation();
+            this.playerCount = game.getCurrentPlayerCount();
+            this.positions = new Location[playerCount];
+            for (int seat = 0; seat < playerCount; seat++) {
+                positions[seat] = game.getPlayerAtSeat(seat).getLocation();
+            }
+            this.hand = player.getCardsInHand().bits();
+            this.history = game.getHistory().copy();
+            this.random = game.getRandom().split();
+            this.notes = player.getNotebook().copy();
+            this.occupancy = map.getOccupancy().copy();
+            decisions.nextAge();
+        }
+
+        void decide() {
+            choose();
+            planMove();
+        }
 
-        Location new_location = null;
+        private void choose() {
+            //accuse as soon as the notebook has deduced the whole envelope,
+            //asking the solver for what propagation alone cannot see
+            CardSet solution = notes.getKnownEnvelope();
+            if (solution.size() < 3 && difficulty.useSolver()) {
+                ClueSolver solver = ClueSolver.forObserver(game.getRules(), playerCount, player.getSeat(), hand, history);
+                solution = CardSet.fromBits(game.getRules(), solver.getEnvelope());
+            }
+            if (solution.size() == 3) {
+                accusation = toList(solution);
+                return;
+            }
 
-        // try move the player to the room which is not in their cards or toggled in their notebook
-        Location currentLocation = player.getLocation();
+            //with few envelopes left, accuse once that beats waiting
+            EndgameSolver.Decision endgame = decideEndgame(player, notes, hand, history, random);
+            if (endgame != null && endgame.isAccuse()) {
+                accusation = toList(CardSet.fromBits(game.getRules(), endgame.getGuess()));
+                return;
+            }
 
-        List<Location> rooms = map.getAllRoomLocations();
+            Card currentRoomCard = location.isRoom() ? Card.of(TYPE_ROOM, location.getRoomId()) : null;
 
-        // remove the rooms which are toggled as marked off in their notebook or in their dealt hand
-        for (Iterator<Location> it = rooms.iterator(); it.hasNext();) {
-            Location l = (Location) it.next();
-            Card room_card = new Card(TYPE_ROOM, l.getRoomId());
-            if (player.getNotebook().isLocationCardInHandOrToggled(room_card)) {
-                it.remove();
+            //off the start square the move comes from the book once the dice are rolled
+            if (openingBook != null && location == map.getBoard().getStart(player.getSuspect().id())) {
+                opening = true;
+                destinations = getUnmarkedRoomLocations(notes);
+                return;
             }
-        }
 
-        int roll = rollDice();
+            //a decision made before in the same situation is reused as is
+            long key = zobrist.hash(player.getSeat(), positions, hand, notes.getToggledBits(), notes.getReasoner().getKnowledgeHash());
+            long cached = decisions.probe(key);
+            List<Card> cachedCards = null;
+            int action = IsmctsSearch.UNDECIDED;
+            int depth = 0;
+
+            //tree search from where everybody is now
+            IsmctsSearch search = searches.get(player);
+            if (cached != TranspositionTable.MISS) {
+                action = (int) (cached & 0xff) - 2;
+                cachedCards = unpackCards(cached >>> 8);
+                Gdx.app.debug("cache", String.format("%s action: %d hits: %d/%d", player.getSuspect(), action, decisions.getHits(), decisions.getProbes()));
+            } else if (difficulty.getSearchBudgetNanos() > 0) {
+                action = search.search(notes, notes.getReasoner().getEnvelopeEstimate(random), positions, random);
+                depth = 64 - Long.numberOfLeadingZeros(search.getLastPlayouts());
+                Gdx.app.debug("search", String.format("%s action: %d playouts: %d (%.0f/s)", player.getSuspect(), action, search.getLastPlayouts(), search.getLastPlayoutsPerSecond()));
+            }
 
-        List<Location> reachableLocations = map.highlightReachablePaths(currentLocation, this.pathfinder, roll);
+            if (action == IsmctsSearch.ACCUSE && endgame != null) {
+                //the endgame solver already found waiting better
+                action = IsmctsSearch.UNDECIDED;
+            }
 
-        // secret passage linkages
-        if (currentLocation.isRoom()) {
-            if (currentLocation.getRoomId() == ROOM_KITCHEN) {
-                if (!player.getNotebook().isLocationCardInHandOrToggled(new Card(TYPE_ROOM, ROOM_STUDY))) {
-                    reachableLocations.add(map.getRoomLocation(ROOM_STUDY));
+            List<Card> cards = null;
+            if (action == IsmctsSearch.ACCUSE) {
+                accusation = cards = cachedCards != null ? cachedCards : toList(search.getLastGuess());
+            } else if (action != IsmctsSearch.UNDECIDED) {
+                if (location.isRoom() && action == location.getRoomId()) {
+                    suggestion = cards = cachedCards != null ? cachedCards : chooseSuggestion(notes.getReasoner().getEnvelopeEstimate(random));
+                } else {
+                    leaving = location.isRoom();
+                    destinations = map.getBoard().getAllDoorLocationsForRoom(action);
                 }
+            } else if (location.isRoom() && !notes.isLocationCardInHandOrToggled(currentRoomCard)) {
+                //make a suggestion if the room they are in is not toggled and they did not just enter into a room
+                suggestion = cards = cachedCards != null ? cachedCards : chooseSuggestion(notes.getReasoner().getEnvelopeEstimate(random));
+            } else {
+                //indicates maybe your player should pay attention that this room 
+                //is in their hand and you may be able to mark it off in your notebook
+                //but you don't know if the card that was shown was a room card earlier so its not a sure thing
+                hmm = leaving = location.isRoom() && notes.isLocationCardInHandOrToggled(currentRoomCard);
+                destinations = getUnmarkedRoomLocations(notes);
             }
-            if (currentLocation.getRoomId() == ROOM_STUDY) {
-                if (!player.getNotebook().isLocationCardInHandOrToggled(new Card(TYPE_ROOM, ROOM_KITCHEN))) {
-                    reachableLocations.add(map.getRoomLocation(ROOM_KITCHEN));
-                }
+
+            if (cached == TranspositionTable.MISS) {
+                decisions.store(key, depth, (action + 2) | (int) (packCards(cards) << 8));
             }
-            if (currentLocation.getRoomId() == ROOM_CONSERVATORY) {
-                if (!player.getNotebook().isLocationCardInHandOrToggled(new Card(TYPE_ROOM, ROOM_LOUNGE))) {
-                    reachableLocations.add(map.getRoomLocation(ROOM_LOUNGE));
+        }
+
+        /**
+         * Ordinal plus one of the suspect, weapon and room, 7 bits each, 0
+         * for none.
+         */
+        long packCards(List<Card> cards) {
+            long packed = 0L;
+            if (cards != null) {
+                for (Card card : cards) {
+                    packed |= (long) (card.ordinal() + 1) << (7 * card.getType());
                 }
             }
-            if (currentLocation.getRoomId() == ROOM_LOUNGE) {
-                if (!player.getNotebook().isLocationCardInHandOrToggled(new Card(TYPE_ROOM, ROOM_CONSERVATORY))) {
-                    reachableLocations.add(map.getRoomLocation(ROOM_CONSERVATORY));
-                }
+            return packed;
+        }
+
+        List<Card> unpackCards(long packed) {
+            if (packed == 0L) {
+                return null;
+            }
+            List<Card> cards = new ArrayList<>();
+            for (int type = TYPE_SUSPECT; type <= TYPE_ROOM; type++) {
+                cards.add(game.getRules().card((int) (packed >>> (7 * type) & 0x7f) - 1));
             }
+            return cards;
         }
 
-        Collections.shuffle(rooms);
-        Collections.shuffle(reachableLocations);
+        /**
+         * Just heads for the unmarked rooms.
+         */
+        void fallback() {
+            accusation = null;
+            suggestion = null;
+            leaving = hmm = opening = false;
+            destinations = getUnmarkedRoomLocations(notes);
+            planMove();
+        }
 
-        // see if they can move to a highlighted room which is not in their hand or toggled
-        for (Location reachableLocation : reachableLocations) {
-            if (rooms.contains(reachableLocation)) {
-                new_location = reachableLocation;
-                break;
+        /**
+         * Rolls and picks where to stop when the turn is a move.
+         */
+        void planMove() {
+            if (destinations == null) {
+                return;
             }
+            roll1 = ClueMain.DICE.roll(random);
+            roll2 = ClueMain.DICE.roll(random);
+            destination = getNextComputerPlayerLocation();
         }
 
-        //move to a closest room which is potential
-        if (new_location == null) {
-            int closest = 100;
-            // find a room location which is closest to them which is not in their hand or toggled
-            for (Location reachableLocation : reachableLocations) {
-                for (Location room : rooms) {
-                    List<Location> path = this.pathfinder.findPath(map.getLocations(), reachableLocation, Collections.singleton(room));
-                    if (path.size() <= closest) {
-                        closest = path.size();
-                        new_location = reachableLocation;
-                    }
+        List<Card> chooseSuggestion(EnvelopeEstimate estimate) {
+            Card room = game.getRules().card(TYPE_ROOM, location.getRoomId());
+
+            //ask for what is expected to tell the most about the envelope
+            CardSet chosen = difficulty.getSuggestionBudgetNanos() > 0
+                    ? suggestionChooser.choose(estimate, player.getSeat(), playerCount, room)
+                    : null;
+            List<Card> cards = new ArrayList<>();
+            if (chosen != null) {
+                cards.add(chosen.ofTypeOnly(TYPE_SUSPECT).get(0));
+                cards.add(room);
+                cards.add(chosen.ofTypeOnly(TYPE_WEAPON).get(0));
+            } else {
+                cards.add(notes.pickLikelyCardOfType(TYPE_SUSPECT, random));
+                cards.add(room);
+                cards.add(notes.pickLikelyCardOfType(TYPE_WEAPON, random));
+            }
+            return cards;
+        }
+
+        void play() {
+            player.getNotebook().getReasoner().adoptEstimates(notes.getReasoner());
+            if (accusation != null) {
+                makeAccusation(player, accusation);
+            } else if (suggestion != null) {
+                showCards.setSuggestion(suggestion, player);
+                showCards.showCards();
+            } else {
+                if (hmm) {
+                    Sounds.play(Sound.HMM);
                 }
+                if (leaving) {
+                    addMessage(player.getSuspect().title() + " is leaving the " + Card.of(TYPE_ROOM, location.getRoomId()), player.getSuspect().color());
+                }
+                showDice(roll1, roll2);
+                addMessage(String.format("%s rolled a %d", player.getSuspect().title(), roll1 + roll2), player.getSuspect().color());
+                for (Location l : reachable) {
+                    map.setHighlighted(l, true);
+                }
+                if (destination != null) {
+                    setPlayerLocationFromMapClick(player, destination);
+                }
+                map.resetHighlights();
             }
+            ClueMain.END_BUTTON.setVisible(true);
         }
 
-        addMessage(String.format("%s rolled a %d", player.getSuspect().title(), roll), player.getSuspect().color());
+        /**
+         * Moves the computer player into one of the room locations if one is
+         * in reach, otherwise to the reachable tile with the fewest expected
+         * turns left to one. Rooms likelier to be in the envelope count as
+         * nearer by the strategy's room likelihood weight. An opening move is
+         * taken from the book when it still is legal.
+         */
+        private Location getNextComputerPlayerLocation() {
+            int roll = roll1 + roll2;
+
+            Location new_location = opening ? getOpeningMove(roll) : null;
+            if (new_location != null) {
+                return new_location;
+            }
+
+            List<Location> reachableLocations = map.getReachablePaths(location, turnPathfinder, roll, occupancy);
+            reachable = new ArrayList<>(reachableLocations);
 
-        setPlayerLocationFromMapClick(player, new_location);
+            // secret passage linkages
+            List<Location> rooms = new ArrayList<>(destinations);
+            if (location.isRoom()) {
+                int passage = map.getBoard().getPassage(location.getRoomId());
+                if (passage != -1 && rooms.contains(map.getRoomLocation(passage))) {
+                    reachableLocations.add(map.getRoomLocation(passage));
+                }
+            }
 
-        return new_location;
-    }
+            random.shuffle(rooms);
+            random.shuffle(reachableLocations);
 
-    private void makeSuggestionComputerPlayer(Player player) {
+            // see if they can move to a highlighted room which is not in their hand or toggled,
+            // the one likeliest in the envelope as far as the strategy weighs it
+            HoldingTracker tracker = notes.getReasoner().getTracker();
+            double weight = strategy.getRoomLikelihoodWeight();
+            double best = Double.MAX_VALUE;
+            for (Location reachableLocation : reachableLocations) {
+                if (rooms.contains(reachableLocation)) {
+                    double cost = -weight * tracker.getEnvelopeLikelihood(game.getRules().ordinal(TYPE_ROOM, reachableLocation.getRoomId()));
+                    if (cost < best) {
+                        best = cost;
+                        new_location = reachableLocation;
+                    }
+                }
+            }
 
-        Location location = player.getLocation();
-        if (location.getRoomId() == -1) {
-            return;
+            //otherwise stop where the fewest turns are expected to the nearest of them
+            if (new_location == null) {
+                TurnTable turns = TurnTable.forBoard(map.getBoard());
+                double closest = Double.MAX_VALUE;
+                for (Location reachableLocation : reachableLocations) {
+                    for (Location room : rooms) {
+                        double expected = turns.getTurns(reachableLocation, room.getRoomId())
+                                - weight * tracker.getEnvelopeLikelihood(game.getRules().ordinal(TYPE_ROOM, room.getRoomId()));
+                        if (expected < closest) {
+                            closest = expected;
+                            new_location = reachableLocation;
+                        }
+                    }
+                }
+            }
+
+            return new_location;
         }
 
-        Card selected_suspect_card = player.getNotebook().randomlyPickCardOfType(TYPE_SUSPECT);
-        Card selected_weapon_card = player.getNotebook().randomlyPickCardOfType(TYPE_WEAPON);
-        Card selected_room_card = new Card(TYPE_ROOM, location.getRoomId());
+        /**
+         * The book move off the start square for the roll and the rooms ruled
+         * out, null if there is none or another player now blocks it.
+         */
+        private Location getOpeningMove(int roll) {
+            int ruledOut = 0;
+            for (int room = 0; room < map.getBoard().getRoomCount(); room++) {
+                if (notes.isLocationCardInHandOrToggled(Card.of(TYPE_ROOM, room))) {
+                    ruledOut |= 1 << room;
+                }
+            }
+            Location move = openingBook.getMove(player.getSuspect().id(), roll, ruledOut);
+            if (move == null || occupancy.isOccupied(move)) {
+                return null;
+            }
+            List<Location> path = turnPathfinder.findPath(map.getLocations(), location, Collections.singleton(move), occupancy);
+            if (path == null || path.size() > roll + 1 || (path.size() < roll + 1 && !move.isRoom())) {
+                return null;
+            }
+            return move;
+        }
 
-        List<Card> suggestion = new ArrayList<>();
-        suggestion.add(selected_suspect_card);
-        suggestion.add(selected_room_card);
-        suggestion.add(selected_weapon_card);
+        private List<Card> toList(CardSet cards) {
+            List<Card> list = new ArrayList<>();
+            for (Card card : cards) {
+                list.add(card);
+            }
+            return list;
+        }
+    }
 
-        this.showCards.setSuggestion(suggestion, player);
-        this.showCards.showCards();
+    /**
+     * Accuse or wait as the endgame solver finds better, null when it is
+     * off or too many envelopes remain.
+     */
+    private EndgameSolver.Decision decideEndgame(Player player, Notebook notes, long hand, SuggestionHistory history, GameRandom random) {
+        if (difficulty.getEndgameBudgetNanos() == 0) {
+            return null;
+        }
+        double hazard = endgameSolver.opponentHazard(game.getCurrentPlayerCount(), player.getSeat(), history);
+        return endgameSolver.solve(notes.getReasoner(), random, hand, hazard);
+    }
+
+    /**
+     * Nobody could disprove the computer player's suggestion. Without the
+     * endgame solver they accuse with it, otherwise the solver decides on
+     * the turn worker whether and with what to accuse.
+     */
+    public void considerAccusation(Player player, List<Card> suggestion) {
+        if (difficulty.getEndgameBudgetNanos() == 0) {
+            makeAccusation(player, suggestion);
+            ClueMain.END_BUTTON.setVisible(true);
+            return;
+        }
+        ClueMain.END_BUTTON.setVisible(false);
+        Notebook notes = player.getNotebook().copy();
+        long hand = player.getCardsInHand().bits();
+        SuggestionHistory history = game.getHistory().copy();
+        GameRandom random = game.getRandom().split();
+        turnWorker.execute(() -> {
+            EndgameSolver.Decision decision = null;
+            try {
+                decision = decideEndgame(player, notes, hand, history, random);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            CardSet accusation = decision != null && decision.isAccuse() ? CardSet.fromBits(game.getRules(), decision.getGuess()) : null;
+            Gdx.app.postRunnable(() -> {
+                player.getNotebook().getReasoner().adoptEstimates(notes.getReasoner());
+                if (accusation != null) {
+                    List<Card> cards = new ArrayList<>();
+                    for (Card card : accusation) {
+                        cards.add(card);
+                    }
+                    makeAccusation(player, cards);
+                }
+                ClueMain.END_BUTTON.setVisible(true);
+            });
+        });
+    }
 
+    /**
+     * The rooms which are not in hand or toggled as marked off in the
+     * notebook.
+     */
+    private List<Location> getUnmarkedRoomLocations(Notebook notes) {
+        List<Location> rooms = map.getAllRoomLocations();
+        for (Iterator<Location> it = rooms.iterator(); it.hasNext();) {
+            Location l = (Location) it.next();
+            Card room_card = Card.of(TYPE_ROOM, l.getRoomId());
+            if (notes.isLocationCardInHandOrToggled(room_card)) {
+                it.remove();
+            }
+        }
+        return rooms;
     }
 
     public void makeAccusation(Player player, List<Card> accusation) {
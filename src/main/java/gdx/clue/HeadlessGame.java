@@ -0,0 +1,236 @@
+package gdx.clue;
+
+import static gdx.clue.Card.TYPE_ROOM;
+import static gdx.clue.Card.TYPE_SUSPECT;
+import static gdx.clue.Card.TYPE_WEAPON;
+
+/**
+ * Whole games between computer players with nothing on screen, for tuning
+ * the {@link StrategyParameters}. Movement is abstract as in the tree
+ * search's playouts: a player picks a room, walks the steps to it off with
+ * the dice and suggests on arrival, passages take one turn.
+ *
+ * Every seat plays the heuristics of an easy computer player with its own
+ * parameters and its own notebook, so the holding tracker and the endgame
+ * solver run as in the game. A player accuses once the notebook has the
+ * envelope or the endgame solver finds accusing better than waiting. Cards
+ * to suggest are picked by the tracker's envelope likelihoods, the
+ * estimator would cost more than the rest of the game.
+ *
+ * The estimator and the endgame solver run without deadlines, bounded by a
+ * fixed number of samples and a fixed depth, so a game is decided by its
+ * random stream alone and not by how busy the machine is.
+ */
+public class HeadlessGame {
+
+    public static final int MAX_ROUNDS = 200;
+
+    static final int ESTIMATE_SAMPLES = 1000;
+    static final int ESTIMATE_KEPT_DEALS = 256;
+    static final int ENDGAME_DEPTH = 3;
+
+    private final Rules rules;
+    private final Board board;
+    private final TurnTable turns;
+
+    public HeadlessGame(Rules rules, Board board) {
+        this.rules = rules;
+        this.board = board;
+        this.turns = TurnTable.forBoard(board);
+    }
+
+    private static class Seat {
+
+        Notebook notes;
+        EndgameSolver solver;
+        StrategyParameters strategy;
+        int tile;
+        int room = -1;
+        int target = -1;
+        int remaining;
+        boolean out;
+    }
+
+    /**
+     * Plays one game with a strategy per seat, seat 0 to move first.
+     *
+     * @return the seat that accused correctly, -1 if nobody did in time
+     */
+    public int play(StrategyParameters[] strategies, GameRandom random) {
+        return new Game(strategies, random).play();
+    }
+
+    private class Game {
+
+        final GameRandom random;
+        final int players;
+        final Seat[] seats;
+        final long[] hands;
+        final int[] holders = new int[rules.total()];
+        final long envelope;
+        final SuggestionHistory history = new SuggestionHistory();
+
+        Game(StrategyParameters[] strategies, GameRandom random) {
+            this.random = random;
+            this.players = strategies.length;
+            int[] deck = new int[rules.dealt()];
+            envelope = Clue.shuffle(rules, random, deck);
+            hands = new long[players];
+            Clue.deal(rules, deck, hands, holders, players);
+
+            seats = new Seat[players];
+            for (int s = 0; s < players; s++) {
+                Player player = new Player(null, "seat " + s, null, true);
+                player.setSeat(s);
+                player.setCardsInHand(CardSet.fromBits(rules, hands[s]));
+                Seat seat = new Seat();
+                seat.strategy = strategies[s];
+                seat.notes = new Notebook(player, rules, players, strategies[s]);
+                seat.notes.getReasoner().getEstimator().setSamples(ESTIMATE_SAMPLES);
+                seat.notes.getReasoner().getEstimator().setBudgetNanos(EnvelopeEstimator.NO_DEADLINE);
+                seat.notes.getReasoner().getEstimator().setKeptDeals(ESTIMATE_KEPT_DEALS);
+                seat.solver = new EndgameSolver(rules, strategies[s]);
+                seat.solver.setBudgetNanos(EndgameSolver.NO_DEADLINE);
+                seat.solver.setMaxDepth(ENDGAME_DEPTH);
+                seat.tile = board.index(board.getStart(s));
+                seats[s] = seat;
+            }
+        }
+
+        int play() {
+            for (int round = 0; round < MAX_ROUNDS; round++) {
+                boolean anyone = false;
+                for (int s = 0; s < players; s++) {
+                    if (seats[s].out) {
+                        continue;
+                    }
+                    anyone = true;
+                    if (turn(s)) {
+                        return s;
+                    }
+                }
+                if (!anyone) {
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * True if the seat won on this turn.
+         */
+        boolean turn(int s) {
+            Seat seat = seats[s];
+            long known = seat.notes.getReasoner().getDeduction().getEnvelope();
+            if (Long.bitCount(known) == 3) {
+                return accuse(s, known);
+            }
+            long guess = endgame(s);
+            if (guess != 0L) {
+                return accuse(s, guess);
+            }
+
+            if (seat.room != -1) {
+                int target = pickRoom(s);
+                if (board.getPassage(seat.room) == target) {
+                    seat.room = target;
+                    return suggest(s);
+                }
+                seat.remaining = board.getRoomSteps(seat.room, target);
+                seat.room = -1;
+                seat.target = target;
+            } else if (seat.target == -1) {
+                seat.target = pickRoom(s);
+                seat.remaining = board.getSteps(seat.tile, seat.target);
+            }
+            seat.remaining -= random.nextInt(6) + random.nextInt(6) + 2;
+            if (seat.remaining > 0) {
+                return false;
+            }
+            seat.room = seat.target;
+            seat.target = -1;
+            return suggest(s);
+        }
+
+        /**
+         * The open room with the fewest expected turns, less the strategy's
+         * weight on its envelope likelihood. Any other room once every room
+         * is accounted for.
+         */
+        int pickRoom(int s) {
+            Seat seat = seats[s];
+            HoldingTracker tracker = seat.notes.getReasoner().getTracker();
+            double weight = seat.strategy.getRoomLikelihoodWeight();
+            return turns.nearestRoom(rules, seat.notes.getCandidates() & rules.typeBits(TYPE_ROOM), seat.room, seat.tile,
+                    ordinal -> -weight * tracker.getEnvelopeLikelihood(ordinal), random);
+        }
+
+        boolean suggest(int s) {
+            Seat seat = seats[s];
+            HoldingTracker tracker = seat.notes.getReasoner().getTracker();
+            long suggestion = 1L << rules.ordinal(TYPE_ROOM, seat.room);
+            for (int type : new int[]{TYPE_SUSPECT, TYPE_WEAPON}) {
+                Card card = seat.notes.pickLikelyCardOfType(type, tracker::getEnvelopeLikelihood, random);
+                suggestion |= card != null ? CardSet.bit(card) : 1L << rules.ordinal(type, random.nextInt(rules.count(type)));
+            }
+            CardSet cards = CardSet.fromBits(rules, suggestion);
+
+            history.suggest(s, suggestion);
+            for (Seat other : seats) {
+                other.notes.recordSuggestion(s, cards);
+            }
+            int disprover = Clue.disprovingSeat(holders, suggestion, s, players);
+            for (int t = (s + 1) % players; t != s && t != disprover; t = (t + 1) % players) {
+                history.pass(t);
+                for (Seat other : seats) {
+                    other.notes.recordPass(t, cards);
+                }
+            }
+            if (disprover != -1) {
+                long matching = hands[disprover] & suggestion;
+                int shown = Long.numberOfTrailingZeros(CardSet.nthBit(matching, random.nextInt(Long.bitCount(matching))));
+                history.show(disprover, shown);
+                for (int t = 0; t < players; t++) {
+                    if (t == s) {
+                        seats[t].notes.recordShown(disprover, rules.card(shown));
+                    } else if (t != disprover) {
+                        seats[t].notes.recordDisproved(disprover, cards);
+                    }
+                }
+                return false;
+            }
+
+            //nobody could disprove, the endgame solver decides as in the game
+            long guess = endgame(s);
+            return guess != 0L && accuse(s, guess);
+        }
+
+        /**
+         * The guess to accuse with when the endgame solver finds that
+         * better than waiting, 0 otherwise.
+         */
+        long endgame(int s) {
+            Seat seat = seats[s];
+            Deduction deduction = seat.notes.getReasoner().getDeduction();
+            long envelopes = 1;
+            for (int type = TYPE_SUSPECT; type <= TYPE_ROOM; type++) {
+                envelopes *= Long.bitCount(deduction.getEnvelopeCandidates(type));
+            }
+            if (envelopes > EndgameSolver.MAX_ENVELOPES) {
+                return 0L;
+            }
+            double hazard = seat.solver.opponentHazard(players, s, history);
+            EndgameSolver.Decision decision = seat.solver.solve(seat.notes.getReasoner(), random, hands[s], hazard);
+            return decision != null && decision.isAccuse() ? decision.getGuess() : 0L;
+        }
+
+        boolean accuse(int s, long accusation) {
+            if (accusation == envelope) {
+                return true;
+            }
+            seats[s].out = true;
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,226 @@
+package gdx.clue;
+
+import static gdx.clue.Card.TYPE_ROOM;
+
+/**
+ * One player's running estimate of who holds each card, from every
+ * suggestion made at the table. Passes and cards shown to the player are
+ * certain, a card shown to somebody else makes the suggested cards more
+ * likely in the shower's hand, and what a player names in a suggestion
+ * makes those cards less likely in their own hand since players mostly ask
+ * about cards they lack.
+ *
+ * Every event only touches the cards it names, so an update costs at most
+ * one pass over the cards. The suggestion evidence is kept apart as a log
+ * likelihood ratio per seat and card, which {@link #reweight} applies to
+ * the deals of an {@link EnvelopeEstimate}; the certain facts are already
+ * part of those deals. How strong each kind of evidence counts comes from
+ * the {@link StrategyParameters}.
+ */
+public class HoldingTracker {
+
+    private final Rules rules;
+    private final int players;
+    private final int observer;
+    private final int cards;
+    private final int[] handSizes;
+    private final double suggestedHeld;
+    private final double roomHeld;
+    private final double disprovedHeld;
+
+    private final long[] none;
+    private final long[] held;
+    private final double[] suggested;
+    private final double[] disproved;
+    private final double[] likelihood;
+    private int version;
+
+    public HoldingTracker(Rules rules, int playerCount, int observer, long hand) {
+        this(rules, playerCount, observer, hand, StrategyParameters.DEFAULT);
+    }
+
+    public HoldingTracker(Rules rules, int playerCount, int observer, long hand, StrategyParameters strategy) {
+        this.rules = rules;
+        this.players = playerCount;
+        this.observer = observer;
+        this.cards = rules.total();
+        this.handSizes = Deduction.handSizes(rules, playerCount);
+        this.suggestedHeld = Math.log(strategy.getSuggestedHeldRatio());
+        this.roomHeld = Math.log(strategy.getRoomHeldRatio());
+        this.disprovedHeld = Math.log(strategy.getDisprovedRatio());
+        this.none = new long[playerCount];
+        this.held = new long[playerCount];
+        this.suggested = new double[playerCount * cards];
+        this.disproved = new double[playerCount * cards];
+        this.likelihood = new double[(playerCount + 1) * cards];
+        held[observer] = hand;
+        none[observer] = rules.allBits() & ~hand;
+        for (int c = 0; c < cards; c++) {
+            update(c);
+        }
+    }
+
+    private HoldingTracker(HoldingTracker other) {
+        this.rules = other.rules;
+        this.players = other.players;
+        this.observer = other.observer;
+        this.cards = other.cards;
+        this.handSizes = other.handSizes;
+        this.suggestedHeld = other.suggestedHeld;
+        this.roomHeld = other.roomHeld;
+        this.disprovedHeld = other.disprovedHeld;
+        this.none = other.none.clone();
+        this.held = other.held.clone();
+        this.suggested = other.suggested.clone();
+        this.disproved = other.disproved.clone();
+        this.likelihood = other.likelihood.clone();
+        this.version = other.version;
+    }
+
+    public HoldingTracker copy() {
+        return new HoldingTracker(this);
+    }
+
+    /**
+     * The seat named the cards in a suggestion.
+     */
+    public void suggested(int seat, long suggestion) {
+        if (seat == observer) {
+            return;
+        }
+        for (long b = suggestion; b != 0L; b &= b - 1) {
+            int c = Long.numberOfTrailingZeros(b);
+            suggested[seat * cards + c] += rules.typeOf(c) == TYPE_ROOM ? roomHeld : suggestedHeld;
+            update(c);
+        }
+        version++;
+    }
+
+    /**
+     * The seat holds none of the cards.
+     */
+    public void passed(int seat, long suggestion) {
+        none[seat] |= suggestion;
+        for (long b = suggestion; b != 0L; b &= b - 1) {
+            update(Long.numberOfTrailingZeros(b));
+        }
+    }
+
+    /**
+     * The seat showed the card to this player.
+     */
+    public void shown(int seat, int ordinal) {
+        held[seat] |= 1L << ordinal;
+        update(ordinal);
+    }
+
+    /**
+     * The seat showed one of the cards to somebody else.
+     */
+    public void disproved(int seat, long suggestion) {
+        for (long b = suggestion & ~none[seat]; b != 0L; b &= b - 1) {
+            int c = Long.numberOfTrailingZeros(b);
+            disproved[seat * cards + c] += disprovedHeld;
+            update(c);
+        }
+    }
+
+    private void update(int c) {
+        int base = c * (players + 1);
+        for (int s = 0; s < players; s++) {
+            if ((held[s] & (1L << c)) != 0L) {
+                for (int t = 0; t <= players; t++) {
+                    likelihood[base + t] = t == s ? 1 : 0;
+                }
+                return;
+            }
+        }
+        //prior of a seat is its share of the dealt cards, of the envelope
+        //one card of the type
+        double envelope = 1.0 / rules.count(rules.typeOf(c));
+        double sum = envelope;
+        likelihood[base + players] = envelope;
+        for (int s = 0; s < players; s++) {
+            double w = 0;
+            if ((none[s] & (1L << c)) == 0L) {
+                w = (1 - envelope) * handSizes[s] / rules.dealt()
+                        * Math.exp(suggested[s * cards + c] + disproved[s * cards + c]);
+            }
+            likelihood[base + s] = w;
+            sum += w;
+        }
+        for (int t = 0; t <= players; t++) {
+            likelihood[base + t] /= sum;
+        }
+    }
+
+    /**
+     * Estimated probability that the seat holds the card.
+     */
+    public double getLikelihood(int seat, int ordinal) {
+        return likelihood[ordinal * (players + 1) + seat];
+    }
+
+    /**
+     * Estimated probability that the card is in the envelope.
+     */
+    public double getEnvelopeLikelihood(int ordinal) {
+        return likelihood[ordinal * (players + 1) + players];
+    }
+
+    /**
+     * How much more likely the suggestions seen so far are if the seat
+     * holds the card, the factor {@link #reweight} applies for it.
+     */
+    public double getSuggestedFactor(int seat, int ordinal) {
+        return Math.exp(suggested[seat * cards + ordinal]);
+    }
+
+    /**
+     * Changes whenever suggestion evidence is added, which is what
+     * {@link #reweight} depends on.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * The estimate with every deal's weight multiplied by how likely the
+     * suggestions seen so far are under it. Returns the estimate itself
+     * when there is nothing to apply or no deals were kept.
+     */
+    public EnvelopeEstimate reweight(EnvelopeEstimate estimate) {
+        int deals = estimate.getDealCount();
+        if (version == 0 || deals == 0) {
+            return estimate;
+        }
+        double[] weights = new double[deals];
+        double[] probabilities = new double[cards];
+        double total = 0;
+        for (int i = 0; i < deals; i++) {
+            byte[] deal = estimate.getDeal(i);
+            double log = 0;
+            for (int c = 0; c < cards; c++) {
+                if (deal[c] >= 0) {
+                    log += suggested[deal[c] * cards + c];
+                }
+            }
+            weights[i] = estimate.getWeight(i) * Math.exp(log);
+            total += weights[i];
+        }
+        if (total <= 0) {
+            return estimate;
+        }
+        byte[][] kept = new byte[deals][];
+        for (int i = 0; i < deals; i++) {
+            kept[i] = estimate.getDeal(i);
+            for (int c = 0; c < cards; c++) {
+                if (kept[i][c] == EnvelopeEstimate.ENVELOPE) {
+                    probabilities[c] += weights[i] / total;
+                }
+            }
+        }
+        return new EnvelopeEstimate(rules, estimate.getVersion(), probabilities, false, estimate.getAttempts(), kept, weights);
+    }
+
+}
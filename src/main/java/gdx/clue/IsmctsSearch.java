@@ -0,0 +1,458 @@
+package gdx.clue;
+
+import static gdx.clue.Card.TYPE_ROOM;
+import static gdx.clue.Card.TYPE_SUSPECT;
+import static gdx.clue.Card.TYPE_WEAPON;
+import gdx.clue.astar.Location;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Information set Monte Carlo tree search for a computer player. Every
+ * iteration draws a deal consistent with what the player knows from an
+ * {@link EnvelopeEstimate}, then plays the game out on an abstract board
+ * where a move is the walking distance to a room less the dice. The tree
+ * holds the player's own decisions, where to head or to suggest in the room
+ * they are in, and whether to accuse now; everybody else follows the default
+ * policy of heading for the open room with the fewest expected turns.
+ *
+ * Iterations run on a worker pool until the wall clock budget is used up,
+ * sharing one tree. The subtree of the chosen action is kept for the next
+ * turn when the player ends up where it led.
+ */
+public class IsmctsSearch {
+
+    public static final long DEFAULT_BUDGET_NANOS = 100000000L;
+
+    /**
+     * Action of accusing with the most likely envelope, the other actions
+     * are room ids.
+     */
+    public static final int ACCUSE = -1;
+
+    /**
+     * Returned when no playout could be run.
+     */
+    public static final int UNDECIDED = -2;
+
+    private static final double EXPLORATION = 0.7;
+    private static final int MAX_TURNS = 1000;
+
+    private final Rules rules;
+    private final Board board;
+    private final TurnTable turns;
+    private final ExecutorService workers;
+    private final int threads;
+    private long budgetNanos = DEFAULT_BUDGET_NANOS;
+
+    private Node root;
+    private int lastAction = Integer.MIN_VALUE;
+    private long lastPlayouts;
+    private double lastPlayoutsPerSecond;
+    private CardSet lastGuess;
+
+    public IsmctsSearch(Rules rules, Board board, ExecutorService workers, int threads) {
+        this.rules = rules;
+        this.board = board;
+        this.turns = TurnTable.forBoard(board);
+        this.workers = workers;
+        this.threads = threads;
+    }
+
+    public void setBudgetNanos(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+    }
+
+    public long getLastPlayouts() {
+        return lastPlayouts;
+    }
+
+    public double getLastPlayoutsPerSecond() {
+        return lastPlayoutsPerSecond;
+    }
+
+    /**
+     * The accusation the last search would make.
+     */
+    public CardSet getLastGuess() {
+        return lastGuess;
+    }
+
+    private static class Node {
+
+        //index 0 is the accusation, then one per room
+        final Node[] children;
+        int visits;
+        double wins;
+
+        Node(int actions) {
+            children = new Node[actions];
+        }
+    }
+
+    /**
+     * Everything an iteration starts from, shared read only by the workers.
+     */
+    private static class Situation {
+
+        int observer;
+        int players;
+        long observerKnown;
+        long observerEnvelope;
+        long guess;
+        int[] rooms;
+        int[] tiles;
+        byte[][] deals;
+        double[] cumulative;
+    }
+
+    /**
+     * Searches from the player's current situation and returns the action to
+     * take, {@link #ACCUSE} or the room to head for. Heading for the room
+     * the player is in means suggesting there.
+     *
+     * @param positions the location of every seat
+     */
+    public synchronized int search(Notebook notebook, EnvelopeEstimate estimate, Location[] positions, GameRandom random) {
+        Deduction deduction = notebook.getReasoner().getDeduction();
+        int observer = deduction.getObserverSeat();
+
+        Situation situation = new Situation();
+        situation.observer = observer;
+        situation.players = deduction.getPlayerCount();
+        situation.observerKnown = deduction.getNotEnvelope() | notebook.getInHandBits();
+        situation.observerEnvelope = deduction.getEnvelope();
+        situation.rooms = new int[situation.players];
+        situation.tiles = new int[situation.players];
+        for (int s = 0; s < situation.players; s++) {
+            situation.rooms[s] = positions[s].getRoomId();
+            situation.tiles[s] = board.index(positions[s]);
+        }
+        for (int type = TYPE_SUSPECT; type <= TYPE_ROOM; type++) {
+            long known = situation.observerEnvelope & rules.typeBits(type);
+            situation.guess |= known != 0L ? known
+                    : CardSet.bit(estimate.getMostLikely(type, ~situation.observerKnown));
+        }
+        lastGuess = CardSet.fromBits(rules, situation.guess);
+
+        int deals = estimate.getDealCount();
+        if (deals == 0) {
+            return UNDECIDED;
+        }
+        situation.deals = new byte[deals][];
+        situation.cumulative = new double[deals];
+        double sum = 0;
+        for (int i = 0; i < deals; i++) {
+            situation.deals[i] = estimate.getDeal(i);
+            sum += estimate.getWeight(i);
+            situation.cumulative[i] = sum;
+        }
+
+        //keep the subtree if the player got where the last action led
+        int currentRoom = situation.rooms[observer];
+        if (root != null && lastAction >= 0 && currentRoom == lastAction) {
+            root = root.children[lastAction + 1];
+        } else {
+            root = null;
+        }
+        if (root == null) {
+            root = new Node(board.getRoomCount() + 1);
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        List<Callable<Long>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            GameRandom workerRandom = random.split();
+            Node workerRoot = root;
+            tasks.add(() -> {
+                Playout playout = new Playout(situation, workerRandom);
+                long count = 0;
+                while (System.nanoTime() < deadline) {
+                    playout.iterate(workerRoot);
+                    count++;
+                }
+                return count;
+            });
+        }
+
+        long playouts = 0;
+        try {
+            for (Future<Long> f : workers.invokeAll(tasks)) {
+                playouts += f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        lastPlayouts = playouts;
+        lastPlayoutsPerSecond = playouts / ((System.nanoTime() - start) / 1e9);
+
+        int best = UNDECIDED;
+        int bestVisits = 0;
+        synchronized (root) {
+            for (int a = 0; a < root.children.length; a++) {
+                Node child = root.children[a];
+                if (child != null && child.visits > bestVisits) {
+                    bestVisits = child.visits;
+                    best = a - 1;
+                }
+            }
+        }
+        lastAction = best;
+        if (best == UNDECIDED) {
+            root = null;
+        }
+        return best;
+    }
+
+    /**
+     * One worker's reusable game state.
+     */
+    private class Playout {
+
+        final Situation situation;
+        final GameRandom random;
+        final int players;
+        final long[] hands;
+        final long[] known;
+        final long[] envelopeKnown;
+        final int[] rooms;
+        final int[] targets;
+        final int[] remaining;
+        final boolean[] suggested;
+        final List<Node> path = new ArrayList<>();
+        long envelope;
+        int winner;
+        boolean expanded;
+
+        Playout(Situation situation, GameRandom random) {
+            this.situation = situation;
+            this.random = random;
+            this.players = situation.players;
+            hands = new long[players];
+            known = new long[players];
+            envelopeKnown = new long[players];
+            rooms = new int[players];
+            targets = new int[players];
+            remaining = new int[players];
+            suggested = new boolean[players];
+        }
+
+        void deal() {
+            double r = random.nextDouble() * situation.cumulative[situation.cumulative.length - 1];
+            int i = Arrays.binarySearch(situation.cumulative, r);
+            byte[] deal = situation.deals[i < 0 ? Math.min(-i - 1, situation.deals.length - 1) : i];
+            Arrays.fill(hands, 0L);
+            envelope = 0L;
+            for (int c = 0; c < deal.length; c++) {
+                if (deal[c] == EnvelopeEstimate.ENVELOPE) {
+                    envelope |= 1L << c;
+                } else {
+                    hands[deal[c]] |= 1L << c;
+                }
+            }
+            for (int s = 0; s < players; s++) {
+                known[s] = hands[s];
+                envelopeKnown[s] = 0L;
+                rooms[s] = situation.rooms[s];
+                targets[s] = -1;
+                suggested[s] = false;
+            }
+            known[situation.observer] = situation.observerKnown;
+            envelopeKnown[situation.observer] = situation.observerEnvelope;
+            winner = -1;
+        }
+
+        void iterate(Node root) {
+            deal();
+            path.clear();
+            Node node = root;
+            double reward = 0;
+            int seat = situation.observer;
+            boolean first = true;
+
+            for (int turn = 0; turn < MAX_TURNS && winner == -1; turn++) {
+                if (seat == situation.observer && node != null && (first || rooms[seat] != -1)) {
+                    if (solved(seat)) {
+                        winner = seat;
+                        break;
+                    }
+                    int action = select(node);
+                    node = node.children[action + 1];
+                    path.add(node);
+                    if (expanded) {
+                        //the rest is default policy
+                        node = null;
+                    }
+                    if (action == ACCUSE) {
+                        winner = accuse(seat) ? seat : players;
+                        break;
+                    }
+                    if (first && rooms[seat] == -1) {
+                        targets[seat] = action;
+                        remaining[seat] = board.getSteps(situation.tiles[seat], action);
+                        walk(seat);
+                    } else if (rooms[seat] == action) {
+                        suggest(seat);
+                    } else {
+                        moveFromRoom(seat, action);
+                    }
+                } else {
+                    defaultTurn(seat);
+                }
+                first = false;
+                seat = (seat + 1) % players;
+            }
+
+            if (winner == situation.observer) {
+                reward = 1;
+            }
+            synchronized (root) {
+                root.wins += reward;
+            }
+            for (Node n : path) {
+                synchronized (n) {
+                    n.wins += reward;
+                }
+            }
+        }
+
+        /**
+         * Upper confidence choice among the actions, counting the visit
+         * before the playout so other workers spread out.
+         */
+        int select(Node node) {
+            synchronized (node) {
+                node.visits++;
+                int best = -1;
+                double bestValue = -1;
+                int unvisited = 0;
+                for (int a = 0; a < node.children.length; a++) {
+                    Node child = node.children[a];
+                    double value;
+                    if (child == null) {
+                        //random order among the unexpanded actions
+                        value = 2 + random.nextDouble();
+                        unvisited++;
+                    } else {
+                        value = child.wins / child.visits + EXPLORATION * Math.sqrt(Math.log(node.visits) / child.visits);
+                    }
+                    if (value > bestValue) {
+                        bestValue = value;
+                        best = a;
+                    }
+                }
+                expanded = node.children[best] == null;
+                if (expanded) {
+                    node.children[best] = new Node(node.children.length);
+                }
+                node.children[best].visits++;
+                return best - 1;
+            }
+        }
+
+        boolean solved(int seat) {
+            for (int type = TYPE_SUSPECT; type <= TYPE_ROOM; type++) {
+                long bits = rules.typeBits(type);
+                if ((envelopeKnown[seat] & bits) == 0L && Long.bitCount(bits & ~known[seat]) != 1) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean accuse(int seat) {
+            if (solved(seat)) {
+                return true;
+            }
+            long accusation = 0L;
+            for (int type = TYPE_SUSPECT; type <= TYPE_ROOM; type++) {
+                long bits = rules.typeBits(type);
+                long pick = situation.guess & bits & ~known[seat];
+                if (pick == 0L) {
+                    pick = Long.lowestOneBit(bits & ~known[seat]);
+                }
+                accusation |= pick;
+            }
+            return accusation == envelope;
+        }
+
+        void defaultTurn(int seat) {
+            if (solved(seat)) {
+                winner = seat;
+                return;
+            }
+            if (rooms[seat] == -1) {
+                if (targets[seat] == -1) {
+                    targets[seat] = pickRoom(seat);
+                    remaining[seat] = board.getSteps(situation.tiles[seat], targets[seat]);
+                }
+                walk(seat);
+            } else if (!suggested[seat]) {
+                suggest(seat);
+            } else {
+                moveFromRoom(seat, pickRoom(seat));
+            }
+        }
+
+        int pickRoom(int seat) {
+            return turns.nearestRoom(rules, rules.typeBits(TYPE_ROOM) & ~known[seat], rooms[seat], situation.tiles[seat],
+                    ordinal -> random.nextDouble() * 0.5, random);
+        }
+
+        void moveFromRoom(int seat, int target) {
+            int from = rooms[seat];
+            if (board.getPassage(from) == target) {
+                arrive(seat, target);
+                return;
+            }
+            rooms[seat] = -1;
+            targets[seat] = target;
+            remaining[seat] = board.getRoomSteps(from, target);
+            walk(seat);
+        }
+
+        void walk(int seat) {
+            remaining[seat] -= random.nextInt(6) + random.nextInt(6) + 2;
+            if (remaining[seat] <= 0) {
+                arrive(seat, targets[seat]);
+            }
+        }
+
+        void arrive(int seat, int room) {
+            rooms[seat] = room;
+            targets[seat] = -1;
+            suggested[seat] = false;
+        }
+
+        void suggest(int seat) {
+            long suggestion = (1L << rules.ordinal(TYPE_ROOM, rooms[seat]))
+                    | pickUnknown(seat, TYPE_SUSPECT) | pickUnknown(seat, TYPE_WEAPON);
+            suggested[seat] = true;
+            for (int s = (seat + 1) % players; s != seat; s = (s + 1) % players) {
+                long matching = hands[s] & suggestion;
+                if (matching != 0L) {
+                    known[seat] |= CardSet.nthBit(matching, random.nextInt(Long.bitCount(matching)));
+                    return;
+                }
+            }
+            envelopeKnown[seat] |= suggestion & ~hands[seat];
+        }
+
+        long pickUnknown(int seat, int type) {
+            long open = rules.typeBits(type) & ~known[seat];
+            if (open == 0L) {
+                open = rules.typeBits(type);
+            }
+            return CardSet.nthBit(open, random.nextInt(Long.bitCount(open)));
+        }
+    }
+
+}
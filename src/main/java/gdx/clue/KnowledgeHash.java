@@ -0,0 +1,101 @@
+package gdx.clue;
+
+import java.util.SplittableRandom;
+
+/**
+ * The part of a {@link Zobrist} key that comes from the suggestions as one
+ * player saw them, kept up to date as each one is recorded instead of
+ * replaying the history on every probe. Passes and cards shown to the
+ * observer go in as facts, so learning one twice does not change the hash;
+ * a card shown to somebody else is a clause over the suggested cards and
+ * every suggestion names its cards, those are summed so repeats do count.
+ * The observer's own suggestions count too, so one that taught nothing new
+ * still moves the hash and a cached suggestion is not made over and over.
+ */
+public class KnowledgeHash {
+
+    private static final long SEED = 0x6A09E667F3BCC909L;
+
+    private final int observer;
+    private final int cards;
+    private final long[] passed;
+    private final long[] holds;
+    private final long[] disproved;
+    private final long[] named;
+
+    private final long[] none;
+    private final long[] held;
+    private long facts;
+    private long clauses;
+
+    public KnowledgeHash(Rules rules, int playerCount, int observer) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        int seats = rules.getMaxPlayers();
+        this.observer = observer;
+        this.cards = rules.total();
+        this.passed = Zobrist.keys(random, seats * cards);
+        this.holds = Zobrist.keys(random, seats * cards);
+        this.disproved = Zobrist.keys(random, seats);
+        this.named = Zobrist.keys(random, seats);
+        this.none = new long[playerCount];
+        this.held = new long[playerCount];
+    }
+
+    private KnowledgeHash(KnowledgeHash other) {
+        this.observer = other.observer;
+        this.cards = other.cards;
+        this.passed = other.passed;
+        this.holds = other.holds;
+        this.disproved = other.disproved;
+        this.named = other.named;
+        this.none = other.none.clone();
+        this.held = other.held.clone();
+        this.facts = other.facts;
+        this.clauses = other.clauses;
+    }
+
+    public KnowledgeHash copy() {
+        return new KnowledgeHash(this);
+    }
+
+    /**
+     * The seat named the cards in a suggestion.
+     */
+    public void suggested(int seat, long suggestion) {
+        clauses += Zobrist.mix(named[seat] ^ suggestion);
+    }
+
+    /**
+     * The seat could not disprove the suggestion.
+     */
+    public void passed(int seat, long suggestion) {
+        long added = suggestion & ~none[seat];
+        none[seat] |= added;
+        facts ^= Zobrist.fold(passed, seat * cards, added);
+    }
+
+    /**
+     * The seat showed the observer the card.
+     */
+    public void shown(int seat, int ordinal) {
+        long bit = 1L << ordinal;
+        if (seat != observer && (held[seat] & bit) == 0L) {
+            held[seat] |= bit;
+            facts ^= holds[seat * cards + ordinal];
+        }
+    }
+
+    /**
+     * The seat showed one of the suggested cards to somebody else.
+     */
+    public void disproved(int seat, long suggestion) {
+        if (seat != observer) {
+            clauses += Zobrist.mix(disproved[seat] ^ suggestion);
+        }
+    }
+
+    public long get() {
+        return facts ^ clauses;
+    }
+
+}
@@ -1,143 +1,282 @@
 package gdx.clue;
 
-import static gdx.clue.Card.NUM_ROOMS;
-import static gdx.clue.Card.NUM_SUSPECTS;
-import static gdx.clue.Card.NUM_WEAPONS;
-import static gdx.clue.Card.TOTAL;
 import static gdx.clue.Card.TYPE_ROOM;
 import static gdx.clue.Card.TYPE_SUSPECT;
 import static gdx.clue.Card.TYPE_WEAPON;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.Random;
-
 import gdx.clue.astar.Location;
-import java.util.Collections;
-import java.util.List;
+import java.util.function.IntToDoubleFunction;
 
-public class Notebook {
+/**
+ * One player's record of the cards, stored as a mask of the cards in hand
+ * and a mask of the cards marked off. A computer player's notebook also
+ * has a {@link Reasoner} working on what is recorded.
+ */
+public class Notebook implements NotebookView {
 
     private Player player;
-    private final LinkedHashMap<Card, Entry> entries = new LinkedHashMap<>();
+    private final Rules rules;
+    private final StrategyParameters strategy;
+    private final long inHand;
+    private long toggled;
+
+    //cards neither in hand nor marked off, and how many of each type
+    private long candidates;
+    private final int[] unresolved = new int[3];
+    private final Reasoner reasoner;
+
+    public Notebook(Player player, int playerCount) {
+        this(player, Rules.CLASSIC, playerCount);
+    }
 
-    public Notebook(Player player) {
+    public Notebook(Player player, Rules rules, int playerCount) {
+        this(player, rules, playerCount, StrategyParameters.DEFAULT);
+    }
+
+    public Notebook(Player player, Rules rules, int playerCount, StrategyParameters strategy) {
         this.setPlayer(player);
+        this.strategy = strategy;
+        this.rules = rules;
+        this.inHand = player.getCardsInHand().bits();
+        this.toggled = 0L;
+        this.candidates = rules.allBits() & ~inHand;
+        for (int type = TYPE_SUSPECT; type <= TYPE_ROOM; type++) {
+            unresolved[type] = Long.bitCount(candidates & rules.typeBits(type));
+        }
+        this.reasoner = player.isComputerPlayer() ? new Reasoner(rules, playerCount, player.getSeat(), inHand, strategy) : null;
+    }
+
+    private Notebook(Notebook other) {
+        this.player = other.player;
+        this.rules = other.rules;
+        this.strategy = other.strategy;
+        this.inHand = other.inHand;
+        this.toggled = other.toggled;
+        this.candidates = other.candidates;
+        System.arraycopy(other.unresolved, 0, unresolved, 0, unresolved.length);
+        this.reasoner = other.reasoner != null ? other.reasoner.copy() : null;
+    }
+
+    /**
+     * A snapshot for a computer player's turn worked out off the render
+     * thread. Nothing recorded here later shows in the copy and the copy
+     * never writes back, the estimates it works out are taken over with
+     * {@link Reasoner#adoptEstimates} on the render thread.
+     */
+    public Notebook copy() {
+        return new Notebook(this);
+    }
+
+    /**
+     * The computer player's reasoning, null in the real player's notebook.
+     */
+    public Reasoner getReasoner() {
+        return reasoner;
+    }
 
-        ArrayList<Card> deck = new ArrayList<>(TOTAL);
-        for (int i = 0; i < NUM_SUSPECTS; i++) {
-            deck.add(new Card(TYPE_SUSPECT, i));
+    /**
+     * The seat named the cards in a suggestion.
+     */
+    public void recordSuggestion(int seat, CardSet suggestion) {
+        if (reasoner != null) {
+            reasoner.suggested(seat, suggestion.bits());
         }
-        for (int i = 0; i < NUM_WEAPONS; i++) {
-            deck.add(new Card(TYPE_WEAPON, i));
+    }
+
+    /**
+     * The seat showed this player the card.
+     */
+    public void recordShown(int seat, Card card) {
+        if (reasoner != null) {
+            reasoner.shown(seat, card.ordinal());
+            markDeductions();
         }
-        for (int i = 0; i < NUM_ROOMS; i++) {
-            deck.add(new Card(TYPE_ROOM, i));
+    }
+
+    /**
+     * The seat could not disprove the suggestion.
+     */
+    public void recordPass(int seat, CardSet suggestion) {
+        if (reasoner != null) {
+            reasoner.passed(seat, suggestion.bits());
+            markDeductions();
         }
+    }
 
-        for (Card card : deck) {
-            entries.put(card, new Entry(card));
+    /**
+     * The seat showed one of the suggested cards to another player.
+     */
+    public void recordDisproved(int seat, CardSet suggestion) {
+        if (reasoner != null) {
+            reasoner.disproved(seat, suggestion.bits());
+            markDeductions();
         }
+    }
 
-        //set cards in hand
-        for (Card card : player.getCardsInHand()) {
-            Entry entry = entries.get(card);
-            entry.setInHand(true);
+    /**
+     * Computer players mark off every card deduced to be held by someone,
+     * the real player keeps marking their notebook by hand.
+     */
+    private void markDeductions() {
+        updateToggled(toggled | reasoner.getDeduction().getHeldByOthers());
+    }
+
+    /**
+     * Marks the card off without toggling it back if already marked.
+     */
+    public void markCard(Card card) {
+        updateToggled(toggled | CardSet.bit(card));
+    }
+
+    private void updateToggled(long bits) {
+        long changed = (toggled ^ bits) & ~inHand;
+        if (changed == 0L) {
+            return;
         }
+        toggled = bits;
+        for (long b = changed; b != 0L; b &= b - 1) {
+            long bit = b & -b;
+            int type = rules.typeOf(Long.numberOfTrailingZeros(b));
+            if ((bits & bit) != 0L) {
+                candidates &= ~bit;
+                unresolved[type]--;
+            } else {
+                candidates |= bit;
+                unresolved[type]++;
+            }
+        }
+    }
+
+    /**
+     * The envelope cards known for certain, a complete accusation when it
+     * holds one card of each type.
+     */
+    public CardSet getKnownEnvelope() {
+        return CardSet.fromBits(rules, reasoner != null ? reasoner.getDeduction().getEnvelope() : 0L);
+    }
 
+    @Override
+    public Rules getRules() {
+        return rules;
     }
 
     public void setToggled(Card card) {
-        Entry entry = entries.get(card);
-        entry.setToggled(!entry.getToggled());
+        updateToggled(toggled ^ CardSet.bit(card));
     }
 
+    @Override
     public boolean isCardInHand(Card card) {
-        Entry entry = entries.get(card);
-        return entry.inHand();
+        return (inHand & CardSet.bit(card)) != 0L;
     }
 
+    @Override
     public boolean isCardToggled(Card card) {
-        Entry entry = entries.get(card);
-        return entry.getToggled();
+        return (toggled & CardSet.bit(card)) != 0L;
+    }
+
+    @Override
+    public long getInHandBits() {
+        return inHand;
+    }
+
+    @Override
+    public long getToggledBits() {
+        return toggled;
+    }
+
+    @Override
+    public CardSet getToggled() {
+        return CardSet.fromBits(rules, toggled);
+    }
+
+    @Override
+    public CardSet getEliminated() {
+        return CardSet.fromBits(rules, inHand | toggled);
     }
 
     public boolean isLocationCardInHandOrToggled(Location location) {
-        Card roomCard = (location.getRoomId() != -1 ? new Card(Card.TYPE_ROOM, location.getRoomId()) : null);
+        Card roomCard = (location.getRoomId() != -1 ? rules.card(TYPE_ROOM, location.getRoomId()) : null);
         return isLocationCardInHandOrToggled(roomCard);
     }
 
     public boolean isLocationCardInHandOrToggled(Card card) {
-        if (isCardInHand(card) || isCardToggled(card)) {
-            return true;
-        }
-        return false;
+        return (candidates & CardSet.bit(card)) == 0L;
     }
 
     public String toString() {
         String text = "";
-        for (Entry entry : entries.values()) {
-            text += entry.toString();
+        for (int i = 0; i < rules.total(); i++) {
+            Card card = rules.card(i);
+            text += card + "\t" + (isCardInHand(card) ? "X" : "-") + "\t" + (isCardToggled(card) ? "X" : "-") + "\n";
         }
         return text;
     }
 
-    public Card randomlyPickCardOfType(int type) {
+    /**
+     * A random card of the type that is neither in hand nor marked off, null
+     * if there is none.
+     */
+    public Card randomlyPickCardOfType(int type, GameRandom random) {
+        long picks = candidates & rules.typeBits(type);
+        if (picks == 0L) {
+            return null;
+        }
+        long bit = CardSet.nthBit(picks, random.nextInt(Long.bitCount(picks)));
+        return rules.card(Long.numberOfTrailingZeros(bit));
+    }
 
-        //select a card of indicated type and check the cards in your hand
-        Card picked_card = null;
-        ArrayList<Card> picks = new ArrayList<>();
+    /**
+     * Picks an unmarked card of the type with odds proportional to its
+     * envelope probability, raised to the strategy's suggestion sharpness.
+     * Computer players only.
+     */
+    public Card pickLikelyCardOfType(int type, GameRandom random) {
+        return pickLikelyCardOfType(type, reasoner.getEnvelopeEstimate(random)::getProbability, random);
+    }
 
-        int total = 0;
-        if (type == TYPE_SUSPECT) {
-            total = NUM_SUSPECTS;
-        }
-        if (type == TYPE_ROOM) {
-            total = NUM_ROOMS;
+    Card pickLikelyCardOfType(int type, IntToDoubleFunction probability, GameRandom random) {
+        long picks = candidates & rules.typeBits(type);
+        double sharpness = strategy.getSuggestionSharpness();
+        double[] weights = new double[rules.total()];
+        double sum = 0;
+        for (long b = picks; b != 0L; b &= b - 1) {
+            int c = Long.numberOfTrailingZeros(b);
+            weights[c] = Math.pow(probability.applyAsDouble(c), sharpness);
+            sum += weights[c];
         }
-        if (type == TYPE_WEAPON) {
-            total = NUM_WEAPONS;
+        if (sum <= 0) {
+            return randomlyPickCardOfType(type, random);
         }
 
-        for (int i = 0; i < total; i++) {
-            Card card = new Card(type, i);
-            if (!isCardInHand(card) && !isCardToggled(card)) {
-                picks.add(card);
+        double r = random.nextDouble() * sum;
+        int last = -1;
+        for (long b = picks; b != 0L; b &= b - 1) {
+            last = Long.numberOfTrailingZeros(b);
+            r -= weights[last];
+            if (r < 0) {
+                break;
             }
         }
-
-        Collections.shuffle(picks);
-
-        picked_card = picks.get(0);
-
-        return picked_card;
+        return rules.card(last);
     }
 
     public boolean canMakeAccusation() {
+        return (reasoner != null && reasoner.getDeduction().isSolved())
+                || (unresolved[TYPE_SUSPECT] <= 2 && unresolved[TYPE_WEAPON] <= 2 && unresolved[TYPE_ROOM] <= 2);
+    }
 
-        int scount = 0;
-        for (int i = 0; i < NUM_SUSPECTS; i++) {
-            Card card = new Card(TYPE_SUSPECT, i);
-            if (!isCardInHand(card) && !isCardToggled(card)) {
-                scount++;
-            }
-        }
-        int wcount = 0;
-        for (int i = 0; i < NUM_WEAPONS; i++) {
-            Card card = new Card(TYPE_WEAPON, i);
-            if (!isCardInHand(card) && !isCardToggled(card)) {
-                wcount++;
-            }
-        }
-        int lcount = 0;
-        for (int i = 0; i < NUM_ROOMS; i++) {
-            Card card = new Card(TYPE_ROOM, i);
-            if (!isCardInHand(card) && !isCardToggled(card)) {
-                lcount++;
-            }
-        }
+    /**
+     * Number of cards of the type neither in hand nor marked off.
+     */
+    public int getUnresolvedCount(int type) {
+        return unresolved[type];
+    }
 
-        return scount <= 2 && wcount <= 2 && lcount <= 2;
+    /**
+     * Mask of the cards neither in hand nor marked off.
+     */
+    public long getCandidates() {
+        return candidates;
     }
 
     public Player getPlayer() {
@@ -148,40 +287,4 @@ public class Notebook {
         this.player = player;
     }
 
-    class Entry {
-
-        Card value;
-        boolean inHand = false;
-        boolean toggled = false;
-
-        Entry(Card value) {
-            this.value = value;
-        }
-
-        boolean inHand() {
-            return inHand;
-        }
-
-        void setInHand(boolean inHand) {
-            this.inHand = inHand;
-        }
-
-        boolean getToggled() {
-            return toggled;
-        }
-
-        void setToggled(boolean toggled) {
-            this.toggled = toggled;
-        }
-
-        String getValue() {
-            return value.toString();
-        }
-
-        public String toString() {
-            return value + "\t" + (inHand ? "X" : "-") + "\t" + (toggled ? "X" : "-") + "\n";
-        }
-
-    }
-
 }
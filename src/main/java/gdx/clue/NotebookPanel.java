@@ -20,6 +20,7 @@ public class NotebookPanel {
 
     public void setNotebook(Notebook notebook, Stage stage) {
         this.notebook = notebook;
+        Rules rules = notebook.getRules();
 
         this.table = new Table(ClueMain.skin);
         this.table.defaults().padLeft(5).align(Align.left);
@@ -42,9 +43,9 @@ public class NotebookPanel {
         this.table.add(new Label("", ClueMain.skin));
         this.table.row();
         this.table.add(new Label("SUSPECTS", ClueMain.skin, "default-yellow"));
-        for (int i = 0; i < NUM_SUSPECTS; i++) {
+        for (int i = 0; i < rules.count(TYPE_SUSPECT); i++) {
             this.table.row();
-            Card card = new Card(TYPE_SUSPECT, i);
+            Card card = rules.card(TYPE_SUSPECT, i);
             this.table.add(new Entry(card));
         }
 
@@ -52,9 +53,9 @@ public class NotebookPanel {
         this.table.add(new Label("", ClueMain.skin));
         this.table.row();
         this.table.add(new Label("WEAPONS", ClueMain.skin, "default-yellow"));
-        for (int i = 0; i < NUM_WEAPONS; i++) {
+        for (int i = 0; i < rules.count(TYPE_WEAPON); i++) {
             this.table.row();
-            Card card = new Card(TYPE_WEAPON, i);
+            Card card = rules.card(TYPE_WEAPON, i);
             this.table.add(new Entry(card));
         }
 
@@ -62,9 +63,9 @@ public class NotebookPanel {
         this.table.add(new Label("", ClueMain.skin));
         this.table.row();
         this.table.add(new Label("ROOMS", ClueMain.skin, "default-yellow"));
-        for (int i = 0; i < NUM_ROOMS; i++) {
+        for (int i = 0; i < rules.count(TYPE_ROOM); i++) {
             this.table.row();
-            Card card = new Card(TYPE_ROOM, i);
+            Card card = rules.card(TYPE_ROOM, i);
             this.table.add(new Entry(card));
         }
 
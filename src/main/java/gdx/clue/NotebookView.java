@@ -0,0 +1,31 @@
+package gdx.clue;
+
+/**
+ * Read only access to a notebook, for the dialogs that show the marks.
+ */
+public interface NotebookView {
+
+    Rules getRules();
+
+    boolean isCardInHand(Card card);
+
+    boolean isCardToggled(Card card);
+
+    /**
+     * Mask of the card ordinals in hand.
+     */
+    long getInHandBits();
+
+    /**
+     * Mask of the card ordinals marked off.
+     */
+    long getToggledBits();
+
+    CardSet getToggled();
+
+    /**
+     * The cards that are either in hand or marked off.
+     */
+    CardSet getEliminated();
+
+}
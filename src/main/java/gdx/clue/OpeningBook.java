@@ -0,0 +1,277 @@
+package gdx.clue;
+
+import gdx.clue.astar.Location;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The first move off every start square, for every roll and every set of
+ * rooms already ruled out, so computer players open without searching.
+ * Built offline by {@link #main} and shipped as a gzipped resource of one
+ * short tile index per entry, -1 where there is no room left to head for.
+ *
+ * Each legal destination is scored by simulating the turns after it: the
+ * player rolls and steps to the reachable tile with the fewest expected
+ * turns in the {@link TurnTable}, until it walks into a room not ruled
+ * out. The destination with the fewest simulated turns wins.
+ */
+public class OpeningBook {
+
+    public static final String RESOURCE = "opening-book.bin";
+
+    private static final int MAGIC = 0x434c4f42;
+    private static final int MIN_ROLL = 2;
+    private static final int MAX_ROLL = 12;
+    private static final int ROLLS = MAX_ROLL - MIN_ROLL + 1;
+    private static final int MAX_SIMULATED_TURNS = 20;
+
+    private final Board board;
+    private final int masks;
+    private final short[] moves;
+
+    private OpeningBook(Board board, short[] moves) {
+        this.board = board;
+        this.masks = 1 << board.getRoomCount();
+        this.moves = moves;
+    }
+
+    /**
+     * Reads the book from the classpath, null if it is missing or was
+     * built for a different board.
+     */
+    public static OpeningBook load(Board board, String resource) {
+        InputStream in = OpeningBook.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            return null;
+        }
+        try (DataInputStream data = new DataInputStream(new GZIPInputStream(in))) {
+            if (data.readInt() != MAGIC
+                    || data.readInt() != board.getTileCount()
+                    || data.readInt() != board.getStartCount()
+                    || data.readInt() != board.getRoomCount()) {
+                return null;
+            }
+            short[] moves = new short[board.getStartCount() * ROLLS << board.getRoomCount()];
+            for (int i = 0; i < moves.length; i++) {
+                moves[i] = data.readShort();
+            }
+            return new OpeningBook(board, moves);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new GZIPOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(board.getTileCount());
+        data.writeInt(board.getStartCount());
+        data.writeInt(board.getRoomCount());
+        for (short move : moves) {
+            data.writeShort(move);
+        }
+        data.close();
+    }
+
+    /**
+     * Where the suspect should move off their start square with the roll,
+     * given a mask of the room ids ruled out. Null if every room is.
+     */
+    public Location getMove(int suspectId, int roll, int ruledOutRooms) {
+        if (roll < MIN_ROLL || roll > MAX_ROLL) {
+            return null;
+        }
+        int move = moves[((suspectId * ROLLS) + roll - MIN_ROLL) * masks + (ruledOutRooms & (masks - 1))];
+        return move == -1 ? null : board.getLocation(move);
+    }
+
+    /**
+     * Builds the book, the simulations of each ruled out set on their own
+     * stream so the result does not depend on scheduling.
+     */
+    public static OpeningBook generate(Board board, int simulations, long seed) {
+        TurnTable turns = TurnTable.forBoard(board);
+        int tiles = board.getTileCount();
+        int rooms = board.getRoomCount();
+        int masks = 1 << rooms;
+
+        int[][] distances = new int[tiles][];
+        for (int t = 0; t < tiles; t++) {
+            distances[t] = distancesFrom(board, t);
+        }
+
+        //tiles reachable with each roll, from a room by any door or the passage
+        int[][][] reachable = new int[tiles][ROLLS][];
+        for (int t = 0; t < tiles; t++) {
+            Location from = board.getLocation(t);
+            if (from.getBlocked()) {
+                continue;
+            }
+            for (int roll = MIN_ROLL; roll <= MAX_ROLL; roll++) {
+                reachable[t][roll - MIN_ROLL] = reachable(board, distances, from, roll);
+            }
+        }
+
+        short[] moves = new short[board.getStartCount() * ROLLS * masks];
+        Arrays.fill(moves, (short) -1);
+        IntStream.range(0, masks - 1).parallel().forEach(mask -> {
+            SplittableRandom random = new SplittableRandom(seed ^ (mask * 0x9E3779B97F4A7C15L));
+
+            double[] closest = new double[tiles];
+            for (int t = 0; t < tiles; t++) {
+                closest[t] = Double.MAX_VALUE;
+                for (int r = 0; r < rooms; r++) {
+                    if ((mask & (1 << r)) == 0) {
+                        closest[t] = Math.min(closest[t], turns.getTurns(t, r));
+                    }
+                }
+            }
+
+            double[] simulated = new double[tiles];
+            Arrays.fill(simulated, Double.NaN);
+            for (int start = 0; start < board.getStartCount(); start++) {
+                int from = board.index(board.getStart(start));
+                for (int roll = MIN_ROLL; roll <= MAX_ROLL; roll++) {
+                    int best = -1;
+                    for (int to : reachable[from][roll - MIN_ROLL]) {
+                        if (Double.isNaN(simulated[to])) {
+                            simulated[to] = simulate(board, reachable, closest, mask, to, simulations, random);
+                        }
+                        if (best == -1 || simulated[to] < simulated[best]
+                                || (simulated[to] == simulated[best] && closest[to] < closest[best])) {
+                            best = to;
+                        }
+                    }
+                    moves[((start * ROLLS) + roll - MIN_ROLL) * masks + mask] = (short) best;
+                }
+            }
+        });
+        return new OpeningBook(board, moves);
+    }
+
+    /**
+     * Mean turns from the tile into a room not ruled out, following the
+     * turn table.
+     */
+    private static double simulate(Board board, int[][][] reachable, double[] closest, int mask, int tile,
+            int simulations, SplittableRandom random) {
+        if (inOpenRoom(board, mask, tile)) {
+            return 0;
+        }
+        long total = 0;
+        for (int i = 0; i < simulations; i++) {
+            int at = tile;
+            int turn = 0;
+            while (turn < MAX_SIMULATED_TURNS && !inOpenRoom(board, mask, at)) {
+                int roll = random.nextInt(6) + random.nextInt(6) + 2;
+                int next = at;
+                for (int to : reachable[at][roll - MIN_ROLL]) {
+                    if (closest[to] < closest[next]) {
+                        next = to;
+                    }
+                }
+                at = next;
+                turn++;
+            }
+            total += turn;
+        }
+        return (double) total / simulations;
+    }
+
+    private static boolean inOpenRoom(Board board, int mask, int tile) {
+        int room = board.getLocation(tile).getRoomId();
+        return room != -1 && (mask & (1 << room)) == 0;
+    }
+
+    /**
+     * Same rule as the map highlights on an empty board: tiles exactly the
+     * roll away, doors up to the roll away.
+     */
+    private static int[] reachable(Board board, int[][] distances, Location from, int roll) {
+        int[] froms;
+        int passage = -1;
+        if (from.isRoom()) {
+            List<Location> doors = board.getAllDoorLocationsForRoom(from.getRoomId());
+            froms = new int[doors.size()];
+            for (int i = 0; i < froms.length; i++) {
+                froms[i] = board.index(doors.get(i));
+            }
+            passage = board.getPassage(from.getRoomId());
+        } else {
+            froms = new int[]{board.index(from)};
+        }
+        boolean[] hit = new boolean[board.getTileCount()];
+        int count = 0;
+        for (int f : froms) {
+            for (int t = 0; t < hit.length; t++) {
+                int d = distances[f][t];
+                if (!hit[t] && (d == roll || (d < roll && board.getLocation(t).isRoom()))) {
+                    hit[t] = true;
+                    count++;
+                }
+            }
+        }
+        if (passage != -1) {
+            int t = board.index(board.getRoomLocation(passage));
+            if (!hit[t]) {
+                hit[t] = true;
+                count++;
+            }
+        }
+        int[] result = new int[count];
+        count = 0;
+        for (int t = 0; t < hit.length; t++) {
+            if (hit[t]) {
+                result[count++] = t;
+            }
+        }
+        return result;
+    }
+
+    private static int[] distancesFrom(Board board, int tile) {
+        int[] dist = new int[board.getTileCount()];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        int[] queue = new int[dist.length];
+        int head = 0;
+        int tail = 0;
+        dist[tile] = 0;
+        queue[tail++] = tile;
+        while (head < tail) {
+            int i = queue[head++];
+            for (Location n : board.getLocation(i).neighbors()) {
+                int j = board.index(n);
+                if (dist[j] == Integer.MAX_VALUE) {
+                    dist[j] = dist[i] + 1;
+                    queue[tail++] = j;
+                }
+            }
+        }
+        return dist;
+    }
+
+    /**
+     * Writes the classic board's book, by default into the resources.
+     */
+    public static void main(String[] args) throws IOException {
+        String path = args.length > 0 ? args[0] : "src/main/resources/" + RESOURCE;
+        int simulations = args.length > 1 ? Integer.parseInt(args[1]) : 2048;
+        long start = System.nanoTime();
+        OpeningBook book = generate(Board.CLASSIC, simulations, 1L);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(path))) {
+            book.write(out);
+        }
+        System.out.printf("opening book written to %s in %.1fs\n", path, (System.nanoTime() - start) / 1e9);
+    }
+
+}
@@ -37,7 +37,7 @@ public class PickCardToShowDialog extends Window {
     private final List<CardCheckBox> checkBoxes = new ArrayList<>();
 
     public PickCardToShowDialog(
-            final GameScreen screen, final ShowCardsRoutine showCards, Player showingPlayer,
+            final GameScreen screen, final ShowCardsRoutine showCards, final Player showingPlayer,
             final Player suggestingPlayer, List<Card> suggestion, String suggestionText) {
 
         super("Pick which card you will show for the suggestion", ClueMain.skin.get("dialog", Window.WindowStyle.class));
@@ -65,14 +65,7 @@ public class PickCardToShowDialog extends Window {
         buttonGroup1.setMaxCheckCount(1);
         buttonGroup1.setMinCheckCount(0);
 
-        List<Card> cards_in_hand = showingPlayer.getCardsInHand();
-        List<Card> cards_in_hand_matching_one_of_three_suggested_cards = new ArrayList<>();
-
-        for (Card card : suggestion) {
-            if (cards_in_hand.contains(card)) {
-                cards_in_hand_matching_one_of_three_suggested_cards.add(card);
-            }
-        }
+        CardSet cards_in_hand_matching_one_of_three_suggested_cards = showingPlayer.getCardsInHand().and(CardSet.of(suggestion));
 
         for (Card card : cards_in_hand_matching_one_of_three_suggested_cards) {
             CardCheckBox cb = new CardCheckBox(card, false, false);
@@ -93,7 +86,7 @@ public class PickCardToShowDialog extends Window {
                     for (CardCheckBox cb : checkBoxes) {
                         if (cb.isChecked()) {
                             hide();
-                            suggestingPlayer.getNotebook().setToggled(cb.getCard());
+                            showCards.recordShown(showingPlayer, cb.getCard());
                             Sounds.play(Sound.POSITIVE_EFFECT);
                             ClueMain.END_BUTTON.setVisible(true);
                             showCards.reset();
@@ -3,9 +3,9 @@ package gdx.clue;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import gdx.clue.ClueMain.Suspect;
-import java.util.ArrayList;
 import java.util.List;
 import gdx.clue.astar.Location;
+import gdx.clue.astar.Occupancy;
 import java.util.Objects;
 
 public class Player {
@@ -13,12 +13,13 @@ public class Player {
     private final Suspect suspect;
     private String name;
     private Card card;
-    private final List<Card> cardsInHand = new ArrayList<>();
+    private CardSet cardsInHand = CardSet.EMPTY;
     private boolean computerPlayer;
     private Location location;
     private Notebook notebook;
     private Actor stageActor;
     private boolean hasMadeFalseAccusation = false;
+    private int seat = -1;
 
     public Player(Card card, String name, Suspect suspect, boolean computer) {
         this.name = name;
@@ -52,23 +53,24 @@ public class Player {
         return true;
     }
 
-    public void setLocation(Location location) {
+    public void setLocation(Location location, Occupancy occupancy) {
 
         if (location == null) {
             return;
         }
 
-        //reset the height back to 100
-        if (this.location != null) {
-            this.location.setHeight(100);
-        }
+        //allow multiple players on a room tile but block regular tiles with one player
+        occupancy.move(this.location, location);
 
         this.location = location;
+    }
 
-        //allow multiple players on a room tile but block regular tiles with one player
-        if (!this.location.isRoom()) {
-            this.location.setHeight(1000);
-        }
+    public int getSeat() {
+        return seat;
+    }
+
+    void setSeat(int seat) {
+        this.seat = seat;
     }
 
     public Location getLocation() {
@@ -84,10 +86,14 @@ public class Player {
     }
 
     public void addCard(Card card) {
-        this.cardsInHand.add(card);
+        this.cardsInHand = this.cardsInHand.with(card);
     }
 
-    public List<Card> getCardsInHand() {
+    public void setCardsInHand(CardSet cards) {
+        this.cardsInHand = cards;
+    }
+
+    public CardSet getCardsInHand() {
         return this.cardsInHand;
     }
 
@@ -96,18 +102,15 @@ public class Player {
     }
 
     public boolean isCardInHand(int type, int id) {
-        Card card = new Card(type, id);
-        return this.cardsInHand.contains(card);
+        return this.cardsInHand.contains(Card.of(type, id));
     }
 
     public boolean isHoldingCardInSuggestion(List<Card> suggestion) {
-        boolean hasCards = false;
-        for (Card card : this.cardsInHand) {
-            if (suggestion.contains(card)) {
-                hasCards = true;
-            }
-        }
-        return hasCards;
+        return isHoldingCardInSuggestion(CardSet.of(suggestion));
+    }
+
+    public boolean isHoldingCardInSuggestion(CardSet suggestion) {
+        return this.cardsInHand.intersects(suggestion);
     }
 
     public Actor getStageActor() {
@@ -31,12 +31,12 @@ public class PlayerSelectionDialog extends Window {
     public static int WIDTH = 300;
     public static int HEIGHT = 400;
 
-    public static final Card CARD_SCARLET = new Card(TYPE_SUSPECT, Suspect.SCARLET.id());
-    public static final Card CARD_MUSTARD = new Card(TYPE_SUSPECT, Suspect.MUSTARD.id());
-    public static final Card CARD_GREEN = new Card(TYPE_SUSPECT, Suspect.GREEN.id());
-    public static final Card CARD_PLUM = new Card(TYPE_SUSPECT, Suspect.PLUM.id());
-    public static final Card CARD_PEACOCK = new Card(TYPE_SUSPECT, Suspect.PEACOCK.id());
-    public static final Card CARD_WHITE = new Card(TYPE_SUSPECT, Suspect.WHITE.id());
+    public static final Card CARD_SCARLET = Card.of(TYPE_SUSPECT, Suspect.SCARLET.id());
+    public static final Card CARD_MUSTARD = Card.of(TYPE_SUSPECT, Suspect.MUSTARD.id());
+    public static final Card CARD_GREEN = Card.of(TYPE_SUSPECT, Suspect.GREEN.id());
+    public static final Card CARD_PLUM = Card.of(TYPE_SUSPECT, Suspect.PLUM.id());
+    public static final Card CARD_PEACOCK = Card.of(TYPE_SUSPECT, Suspect.PEACOCK.id());
+    public static final Card CARD_WHITE = Card.of(TYPE_SUSPECT, Suspect.WHITE.id());
 
     Actor previousKeyboardFocus, previousScrollFocus;
     private final FocusListener focusListener;
@@ -104,6 +104,25 @@ public class PlayerSelectionDialog extends Window {
         table.add(new Label("", ClueMain.skin));
         table.row();
 
+        table.add(new Label("Select the difficulty", ClueMain.skin));
+        table.row();
+        final Difficulty[] difficulties = Difficulty.values();
+        final CheckBox[] levels = new CheckBox[difficulties.length];
+        for (int i = 0; i < difficulties.length; i++) {
+            levels[i] = new CheckBox(difficulties[i].title(), ClueMain.skin, "selection-blue");
+            levels[i].setChecked(difficulties[i] == screen.getDifficulty());
+            table.add(levels[i]);
+            if (i % 2 == 1) {
+                table.row();
+            }
+        }
+        ButtonGroup<CheckBox> difficultyGroup = new ButtonGroup<>(levels);
+        difficultyGroup.setMaxCheckCount(1);
+        difficultyGroup.setMinCheckCount(1);
+
+        table.add(new Label("", ClueMain.skin));
+        table.row();
+
         TextButton close = new TextButton("OK", ClueMain.skin);
         close.addListener(new EventListener() {
             @Override
@@ -191,6 +210,12 @@ public class PlayerSelectionDialog extends Window {
                         game.addPlayer(CARD_MUSTARD, "", Suspect.MUSTARD, true);
                     }
 
+                    for (int i = 0; i < difficulties.length; i++) {
+                        if (levels[i].isChecked()) {
+                            screen.setDifficulty(difficulties[i]);
+                        }
+                    }
+
                     hide();
                     
                     ClueMain.START_BUTTON.setDisabled(true);
@@ -0,0 +1,127 @@
+package gdx.clue;
+
+/**
+ * What a computer player works out from the suggestions at the table: the
+ * {@link Deduction} over the certain facts, the {@link HoldingTracker} over
+ * what everybody chose to suggest and the envelope estimates drawn from
+ * both, kept until either changes. Only computer players' notebooks have
+ * one, the real player does their own reasoning.
+ */
+public class Reasoner {
+
+    private final Deduction deduction;
+    private final HoldingTracker tracker;
+    private final KnowledgeHash knowledge;
+    private final EnvelopeEstimator estimator = new EnvelopeEstimator();
+    private EnvelopeEstimate counted;
+    private EnvelopeEstimate estimate;
+    private int estimateTrackerVersion;
+
+    public Reasoner(Rules rules, int playerCount, int seat, long inHand, StrategyParameters strategy) {
+        this.deduction = new Deduction(rules, playerCount, seat, inHand);
+        this.tracker = new HoldingTracker(rules, playerCount, seat, inHand, strategy);
+        this.knowledge = new KnowledgeHash(rules, playerCount, seat);
+    }
+
+    private Reasoner(Reasoner other) {
+        this.deduction = other.deduction.copy();
+        this.tracker = other.tracker.copy();
+        this.knowledge = other.knowledge.copy();
+        estimator.setSamples(other.estimator.getSamples());
+        estimator.setBudgetNanos(other.estimator.getBudgetNanos());
+        estimator.setKeptDeals(other.estimator.getKeptDeals());
+        this.counted = other.counted;
+        this.estimate = other.estimate;
+        this.estimateTrackerVersion = other.estimateTrackerVersion;
+    }
+
+    public Reasoner copy() {
+        return new Reasoner(this);
+    }
+
+    /**
+     * Keeps the estimates a copy computed if nothing has been learned since
+     * the copy was made.
+     */
+    public void adoptEstimates(Reasoner copy) {
+        if (copy.counted == null || copy.counted.getVersion() != deduction.getVersion()) {
+            return;
+        }
+        if (copy.counted != counted) {
+            counted = copy.counted;
+            estimate = null;
+        }
+        if (copy.estimate != null && copy.estimateTrackerVersion == tracker.getVersion()) {
+            estimate = copy.estimate;
+            estimateTrackerVersion = copy.estimateTrackerVersion;
+        }
+    }
+
+    public Deduction getDeduction() {
+        return deduction;
+    }
+
+    public EnvelopeEstimator getEstimator() {
+        return estimator;
+    }
+
+    public HoldingTracker getTracker() {
+        return tracker;
+    }
+
+    /**
+     * The {@link KnowledgeHash} of everything recorded so far.
+     */
+    public long getKnowledgeHash() {
+        return knowledge.get();
+    }
+
+    /**
+     * Envelope probabilities from what this player knows, recomputed only
+     * when the knowledge has changed. Counted exactly when that is cheap
+     * enough, sampled otherwise, then weighted by what the other players
+     * chose to suggest.
+     */
+    public EnvelopeEstimate getEnvelopeEstimate(GameRandom random) {
+        if (counted == null || counted.getVersion() != deduction.getVersion()) {
+            counted = null;
+            EnvelopeCounter counter = new EnvelopeCounter(deduction);
+            if (counter.getCost() <= EnvelopeCounter.EXACT_COST_LIMIT) {
+                counted = counter.count(random, estimator.getKeptDeals());
+            }
+            if (counted == null) {
+                counted = estimator.estimate(deduction, random);
+            }
+            estimate = null;
+        }
+        if (estimate == null || estimateTrackerVersion != tracker.getVersion()) {
+            estimate = tracker.reweight(counted);
+            estimateTrackerVersion = tracker.getVersion();
+        }
+        return estimate;
+    }
+
+    public void suggested(int seat, long suggestion) {
+        tracker.suggested(seat, suggestion);
+        knowledge.suggested(seat, suggestion);
+    }
+
+    public void shown(int seat, int ordinal) {
+        deduction.cardShown(seat, ordinal);
+        tracker.shown(seat, ordinal);
+        knowledge.shown(seat, ordinal);
+    }
+
+    public void passed(int seat, long suggestion) {
+        deduction.couldNotDisprove(seat, suggestion);
+        tracker.passed(seat, suggestion);
+        knowledge.passed(seat, suggestion);
+    }
+
+    public void disproved(int seat, long suggestion) {
+        deduction.disproved(seat, suggestion);
+        tracker.disproved(seat, suggestion);
+        knowledge.disproved(seat, suggestion);
+    }
+
+}
@@ -5,15 +5,22 @@ import static gdx.clue.Card.*;
 import static gdx.clue.ClueMain.SCREEN_DIM_HEIGHT;
 import gdx.clue.ClueMain.Suspect;
 import static gdx.clue.ClueMain.TILE_DIM;
+import java.util.Arrays;
 
 public class RoomIconPlacement {
 
     int icon_width = 54;
     int icon_height = 62;
-    Room[] rooms = new Room[9];
-
-    public RoomIconPlacement() {
-        for (int i = 0; i < NUM_ROOMS; i++) {
+    int icons_per_row = 3;
+    final int num_rooms;
+    final int num_slots;
+    Room[] rooms;
+
+    public RoomIconPlacement(Rules rules) {
+        num_rooms = rules.count(TYPE_ROOM);
+        num_slots = rules.getMaxPlayers();
+        rooms = new Room[num_rooms];
+        for (int i = 0; i < num_rooms; i++) {
             rooms[i] = new Room(i);
         }
     }
@@ -22,7 +29,7 @@ public class RoomIconPlacement {
         if (roomId < 0) {
             return;
         }
-        for (int i = 0; i < NUM_SUSPECTS; i++) {
+        for (int i = 0; i < num_slots; i++) {
             if (rooms[roomId].slot[i] == -1) {
                 rooms[roomId].slot[i] = playerId;
                 break;
@@ -32,8 +39,8 @@ public class RoomIconPlacement {
     }
 
     public void removePlayerIcon(int playerId) {
-        for (int j = 0; j < NUM_ROOMS; j++) {
-            for (int i = 0; i < NUM_SUSPECTS; i++) {
+        for (int j = 0; j < num_rooms; j++) {
+            for (int i = 0; i < num_slots; i++) {
                 if (rooms[j].slot[i] == playerId) {
                     rooms[j].slot[i] = -1;
                 }
@@ -43,8 +50,8 @@ public class RoomIconPlacement {
 
     public void drawIcons(Batch batch) {
 
-        for (int i = 0; i < NUM_ROOMS; i++) {
-            for (int j = 0; j < NUM_SUSPECTS; j++) {
+        for (int i = 0; i < num_rooms; i++) {
+            for (int j = 0; j < num_slots; j++) {
                 if (rooms[i].slot[j] != -1) {
                     
                     int x = rooms[i].icon_locations[j][0];
@@ -69,11 +76,12 @@ public class RoomIconPlacement {
 
         //x,y coords for icons so that they dont all stack on top of each other when drawn
         int[][] icon_locations;
-        //6 slots for 6 player icons in a single room
-        int[] slot = {-1, -1, -1, -1, -1, -1};
+        //one slot per player icon in a single room
+        int[] slot = new int[num_slots];
 
         Room(int id) {
             this.id = id;
+            Arrays.fill(slot, -1);
 
             if (id == ROOM_KITCHEN) {
                 start_x = 5;
@@ -112,14 +120,14 @@ public class RoomIconPlacement {
                 start_y = 360;
             }
 
-            int[][] temp = {{start_x, start_y},
-            {start_x + (icon_width * 1) + 2, start_y},
-            {start_x + (icon_width * 2) + 2, start_y},
-            {start_x, start_y + (icon_height) + 2},
-            {start_x + (icon_width * 1) + 2, start_y + (icon_height) + 2},
-            {start_x + (icon_width * 2) + 2, start_y + (icon_height) + 2}};
-
-            this.icon_locations = temp;
+            //rows of icons so they do not stack, as many rows as needed
+            this.icon_locations = new int[num_slots][2];
+            for (int i = 0; i < num_slots; i++) {
+                int col = i % icons_per_row;
+                int row = i / icons_per_row;
+                icon_locations[i][0] = start_x + (col == 0 ? 0 : (icon_width * col) + 2);
+                icon_locations[i][1] = start_y + (row == 0 ? 0 : (icon_height * row) + 2);
+            }
         }
 
     }
@@ -0,0 +1,187 @@
+package gdx.clue;
+
+import static gdx.clue.Card.TYPE_ROOM;
+import static gdx.clue.Card.TYPE_SUSPECT;
+import static gdx.clue.Card.TYPE_WEAPON;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+/**
+ * Data driven definition of a game variant: the card names of each
+ * category and the allowed player counts. Owns the canonical {@link Card}
+ * instances of the variant, numbered by a dense ordinal in the order
+ * suspects, weapons, rooms.
+ *
+ * Card sets are single long masks, so a variant may have at most 64 cards.
+ * Only the classic variant is played, the board has the tiles and start
+ * squares of its nine rooms and six suspects alone.
+ */
+public class Rules {
+
+    public static final int MAX_CARDS = 64;
+
+    public static final Rules CLASSIC = load("rules/classic.properties");
+
+    private final String name;
+    private final String[][] names = new String[3][];
+    private final int[] offsets = new int[3];
+    private final int total;
+    private final int minPlayers;
+    private final int maxPlayers;
+    private final Card[] cards;
+
+    public Rules(String name, String[] suspects, String[] weapons, String[] rooms, int minPlayers, int maxPlayers) {
+        this.name = name;
+        this.names[TYPE_SUSPECT] = suspects.clone();
+        this.names[TYPE_WEAPON] = weapons.clone();
+        this.names[TYPE_ROOM] = rooms.clone();
+        this.minPlayers = minPlayers;
+        this.maxPlayers = maxPlayers;
+
+        this.offsets[TYPE_SUSPECT] = 0;
+        this.offsets[TYPE_WEAPON] = suspects.length;
+        this.offsets[TYPE_ROOM] = suspects.length + weapons.length;
+        this.total = suspects.length + weapons.length + rooms.length;
+
+        if (suspects.length == 0 || weapons.length == 0 || rooms.length == 0) {
+            throw new IllegalArgumentException("every card category needs at least one card: " + name);
+        }
+        if (total > MAX_CARDS) {
+            throw new IllegalArgumentException("too many cards: " + total + " > " + MAX_CARDS);
+        }
+        if (minPlayers < 2 || maxPlayers < minPlayers) {
+            throw new IllegalArgumentException("invalid player counts: " + minPlayers + " - " + maxPlayers);
+        }
+
+        this.cards = new Card[total];
+        for (int type = 0; type < 3; type++) {
+            for (int i = 0; i < names[type].length; i++) {
+                int ordinal = offsets[type] + i;
+                cards[ordinal] = new Card(this, type, i, ordinal, names[type][i]);
+            }
+        }
+    }
+
+    /**
+     * Loads a variant from a properties resource on the classpath.
+     */
+    public static Rules load(String resource) {
+        InputStream in = Rules.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            throw new IllegalArgumentException("rules not found: " + resource);
+        }
+        try {
+            Properties props = new Properties();
+            props.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            return new Rules(
+                    props.getProperty("name", resource),
+                    split(props, "suspects"),
+                    split(props, "weapons"),
+                    split(props, "rooms"),
+                    Integer.parseInt(props.getProperty("players.min", "3")),
+                    Integer.parseInt(props.getProperty("players.max", "6")));
+        } catch (IOException e) {
+            throw new IllegalStateException("could not read rules: " + resource, e);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    private static String[] split(Properties props, String key) {
+        String value = props.getProperty(key);
+        if (value == null) {
+            throw new IllegalArgumentException("missing rules property: " + key);
+        }
+        String[] parts = value.split(",");
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = parts[i].trim();
+        }
+        return parts;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMinPlayers() {
+        return minPlayers;
+    }
+
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+
+    /**
+     * Number of cards of the given type.
+     */
+    public int count(int type) {
+        return names[type].length;
+    }
+
+    public int total() {
+        return total;
+    }
+
+    /**
+     * Number of cards dealt to the players, everything but the envelope.
+     */
+    public int dealt() {
+        return total - 3;
+    }
+
+    public Card card(int type, int value) {
+        return cards[offsets[type] + value];
+    }
+
+    public Card card(int ordinal) {
+        return cards[ordinal];
+    }
+
+    public int ordinal(int type, int value) {
+        return offsets[type] + value;
+    }
+
+    public int firstOrdinal(int type) {
+        return offsets[type];
+    }
+
+    /**
+     * Bits of all the cards of the given type.
+     */
+    public long typeBits(int type) {
+        return lowBits(names[type].length) << offsets[type];
+    }
+
+    /**
+     * Bits of the whole deck.
+     */
+    public long allBits() {
+        return lowBits(total);
+    }
+
+    /**
+     * The card type of an ordinal.
+     */
+    public int typeOf(int ordinal) {
+        if (ordinal >= offsets[TYPE_ROOM]) {
+            return TYPE_ROOM;
+        }
+        return ordinal >= offsets[TYPE_WEAPON] ? TYPE_WEAPON : TYPE_SUSPECT;
+    }
+
+    private static long lowBits(int n) {
+        return n == 64 ? -1L : (1L << n) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
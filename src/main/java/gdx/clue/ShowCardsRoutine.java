@@ -6,14 +6,14 @@ import com.badlogic.gdx.scenes.scene2d.actions.SequenceAction;
 import static gdx.clue.Card.*;
 import java.util.List;
 import gdx.clue.astar.Location;
-import java.util.ArrayList;
-import java.util.Random;
 
 public class ShowCardsRoutine {
 
     List<Card> suggestion;
+    CardSet suggestionSet;
     String suggestion_text;
     Player suggesting_player;
+    int disproving_seat = -1;
     int index = -1;
 
     GameScreen screen;
@@ -25,7 +25,13 @@ public class ShowCardsRoutine {
     public void setSuggestion(List<Card> suggestion, Player suggesting_player) {
 
         this.suggestion = suggestion;
+        this.suggestionSet = CardSet.of(suggestion);
         this.suggesting_player = suggesting_player;
+        this.disproving_seat = screen.getGame().getDisprovingSeat(suggesting_player, suggestionSet);
+        screen.getGame().getHistory().suggest(suggesting_player.getSeat(), suggestionSet.bits());
+        for (Player player : screen.getGame().getPlayers()) {
+            player.getNotebook().recordSuggestion(suggesting_player.getSeat(), suggestionSet);
+        }
 
         Card room = null, suspect = null, weapon = null;
         for (Card card : suggestion) {
@@ -46,7 +52,7 @@ public class ShowCardsRoutine {
                 screen.getPlayerIconPlacement().removePlayerIcon(player.getSuspect().id());
                 Location room_location = suggesting_player.getLocation();
                 screen.getPlayerIconPlacement().addPlayerIcon(room_location.getRoomId(), player.getSuspect().id());
-                player.setLocation(room_location);
+                player.setLocation(room_location, screen.getMap().getOccupancy());
                 screen.addMessage(player.getSuspect().title() + " has been called over to the " + room + " by " + suggesting_player.getSuspect().title(), player.getSuspect().color());
             }
         }
@@ -72,32 +78,29 @@ public class ShowCardsRoutine {
 
         if (this.index == -1) {
             //get the next player to the right and ask to show a card
-            int suggestingPlayerIndex = screen.getGame().getPlayers().indexOf(suggesting_player);
+            int suggestingPlayerIndex = suggesting_player.getSeat();
 
             System.out.printf("START SHOW CARDS suggesting_player: %s suggestingPlayerIndex: %d\n", suggesting_player.getSuspect(), suggestingPlayerIndex);
 
-            this.index = suggestingPlayerIndex + 1;
-            if (this.index == screen.getGame().getPlayers().size()) {
-                this.index = 0;
-            }
+            this.index = screen.getGame().nextSeat(suggestingPlayerIndex);
         }
 
         Card card_to_show = null;
 
-        Player next_player = screen.getGame().getPlayers().get(this.index);
+        Player next_player = screen.getGame().getPlayerAtSeat(this.index);
 
         System.out.printf("SHOW CARDS suggesting_player: %s next: %s index: %d\n", suggesting_player.getSuspect(), next_player.getSuspect(), this.index);
 
         if (next_player == suggesting_player) {
-            ClueMain.END_BUTTON.setVisible(true);
             this.index = -1;
             Sounds.play(Sound.LAUGH);
             
             //if no one was able to show any cards after full round 
             //then it is possible to make the accusation with this suggestion
             if (next_player.isComputerPlayer()) {
-                screen.makeAccusation(next_player, suggestion);
+                screen.considerAccusation(next_player, suggestion);
             } else {
+                ClueMain.END_BUTTON.setVisible(true);
                 screen.addMessage("You may make an accusation!", Color.PINK);
             }
             
@@ -106,9 +109,10 @@ public class ShowCardsRoutine {
 
         if (next_player == screen.getYourPlayer()) {
 
-            if (!screen.getYourPlayer().isHoldingCardInSuggestion(suggestion)) {
+            if (next_player.getSeat() != disproving_seat) {
                 String text = "You are not holding any of the cards suggested by " + suggesting_player.getSuspect().title();
                 screen.addMessage(text, next_player.getSuspect().color());
+                recordPass(next_player);
             } else {
                 PickCardToShowDialog dialog = new PickCardToShowDialog(screen, this, screen.getYourPlayer(), suggesting_player, suggestion, suggestion_text);
                 dialog.show(screen.getStage());
@@ -117,18 +121,10 @@ public class ShowCardsRoutine {
 
         } else {
 
-            List<Card> cards_in_hand = next_player.getCardsInHand();
-            List<Card> cards_in_hand_matching_one_of_three_suggested_cards = new ArrayList<>();
-
-            for (Card card : suggestion) {
-                if (cards_in_hand.contains(card)) {
-                    cards_in_hand_matching_one_of_three_suggested_cards.add(card);
-                }
-            }
-
-            if (cards_in_hand_matching_one_of_three_suggested_cards.size() > 0) {
+            if (next_player.getSeat() == disproving_seat) {
 
-                int picked = new Random().nextInt(cards_in_hand_matching_one_of_three_suggested_cards.size());
+                CardSet cards_in_hand_matching_one_of_three_suggested_cards = next_player.getCardsInHand().and(suggestionSet);
+                int picked = screen.getGame().getRandom().nextInt(cards_in_hand_matching_one_of_three_suggested_cards.size());
                 card_to_show = cards_in_hand_matching_one_of_three_suggested_cards.get(picked);
 
                 String text = next_player.getSuspect().title() + " is showing the \"" + card_to_show + "\" card to you.";
@@ -141,9 +137,7 @@ public class ShowCardsRoutine {
                 Sounds.play(Sound.POSITIVE_EFFECT);
 
                 //the real player needs to remember to mark their notebook manually! 
-                if (suggesting_player.isComputerPlayer()) {
-                    suggesting_player.getNotebook().setToggled(card_to_show);
-                }
+                recordShown(next_player, card_to_show);
 
                 ClueMain.END_BUTTON.setVisible(true);
 
@@ -152,14 +146,12 @@ public class ShowCardsRoutine {
 
             } else {
                 screen.addMessage(next_player.getSuspect().title() + " does not have a card to show.", next_player.getSuspect().color());
+                recordPass(next_player);
             }
 
         }
 
-        index++;
-        if (index == screen.getGame().getPlayers().size()) {
-            index = 0;
-        }
+        index = screen.getGame().nextSeat(index);
 
         SequenceAction seq = Actions.action(SequenceAction.class);
         seq.addAction(Actions.delay(1f));
@@ -172,6 +164,32 @@ public class ShowCardsRoutine {
 
     }
     
+    /**
+     * Every notebook learns that the player holds none of the suggested
+     * cards.
+     */
+    void recordPass(Player passing_player) {
+        screen.getGame().getHistory().pass(passing_player.getSeat());
+        for (Player player : screen.getGame().getPlayers()) {
+            player.getNotebook().recordPass(passing_player.getSeat(), suggestionSet);
+        }
+    }
+
+    /**
+     * The suggesting player learns the card, everybody else only learns that
+     * one of the suggested cards was shown.
+     */
+    void recordShown(Player showing_player, Card card) {
+        screen.getGame().getHistory().show(showing_player.getSeat(), card.ordinal());
+        for (Player player : screen.getGame().getPlayers()) {
+            if (player == suggesting_player) {
+                player.getNotebook().recordShown(showing_player.getSeat(), card);
+            } else if (player != showing_player) {
+                player.getNotebook().recordDisproved(showing_player.getSeat(), suggestionSet);
+            }
+        }
+    }
+
     void reset() {
         this.index = -1;
     }
@@ -0,0 +1,208 @@
+package gdx.clue;
+
+import com.badlogic.gdx.Gdx;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * The weights behind the computer players' heuristics as one vector, so
+ * {@link StrategyTuner} can search over them. Read at startup from a
+ * properties file next to the game, or the tuned one shipped in the
+ * resources; a missing key keeps the hand picked default, values out of
+ * range are clamped.
+ */
+public final class StrategyParameters {
+
+    public static final String FILE = "clue-strategy.properties";
+
+    public static final int SUGGESTED_HELD_RATIO = 0;
+    public static final int ROOM_HELD_RATIO = 1;
+    public static final int DISPROVED_RATIO = 2;
+    public static final int HAZARD_SCALE = 3;
+    public static final int HAZARD_POWER = 4;
+    public static final int ROUNDS_PER_SUGGESTION = 5;
+    public static final int ROOM_LIKELIHOOD_WEIGHT = 6;
+    public static final int SUGGESTION_SHARPNESS = 7;
+
+    static final String[] KEYS = {
+        "suggested.held.ratio",
+        "room.held.ratio",
+        "disproved.ratio",
+        "hazard.scale",
+        "hazard.power",
+        "rounds.per.suggestion",
+        "room.likelihood.weight",
+        "suggestion.sharpness"
+    };
+    static final double[] MIN = {0.05, 0.05, 1.0, 0.0, 0.5, 0.5, 0.0, 0.0};
+    static final double[] MAX = {1.0, 1.0, 10.0, 1.0, 8.0, 6.0, 20.0, 8.0};
+
+    public static final StrategyParameters DEFAULT = new StrategyParameters(new double[]{0.5, 0.8, 2.0, 0.5, 3.0, 2.0, 0.0, 1.0});
+
+    private final double[] values;
+
+    public StrategyParameters(double[] values) {
+        if (values.length != KEYS.length) {
+            throw new IllegalArgumentException("expected " + KEYS.length + " values, got " + values.length);
+        }
+        this.values = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            this.values[i] = Math.max(MIN[i], Math.min(MAX[i], values[i]));
+        }
+    }
+
+    public static int size() {
+        return KEYS.length;
+    }
+
+    public double get(int i) {
+        return values[i];
+    }
+
+    public double[] toArray() {
+        return values.clone();
+    }
+
+    /**
+     * How much less often a player names a card they hold than one they
+     * lack.
+     */
+    public double getSuggestedHeldRatio() {
+        return values[SUGGESTED_HELD_RATIO];
+    }
+
+    /**
+     * The same for rooms, which are named wherever the player stands.
+     */
+    public double getRoomHeldRatio() {
+        return values[ROOM_HELD_RATIO];
+    }
+
+    /**
+     * How much more likely each suggested card is held by the player who
+     * showed one of them to somebody else.
+     */
+    public double getDisprovedRatio() {
+        return values[DISPROVED_RATIO];
+    }
+
+    /**
+     * Chance that an opponent who has seen every card accuses within a
+     * round.
+     */
+    public double getHazardScale() {
+        return values[HAZARD_SCALE];
+    }
+
+    /**
+     * How sharply that chance grows with the share of cards an opponent has
+     * seen.
+     */
+    public double getHazardPower() {
+        return values[HAZARD_POWER];
+    }
+
+    /**
+     * Rounds the opponents get for every suggestion, walking to a room and
+     * asking.
+     */
+    public double getRoundsPerSuggestion() {
+        return values[ROUNDS_PER_SUGGESTION];
+    }
+
+    /**
+     * Expected turns a room's envelope likelihood is worth when picking the
+     * room to head for, 0 to go by distance alone.
+     */
+    public double getRoomLikelihoodWeight() {
+        return values[ROOM_LIKELIHOOD_WEIGHT];
+    }
+
+    /**
+     * Power the envelope probabilities are raised to when picking cards to
+     * suggest, 0 picks uniformly and larger values pick the likeliest.
+     */
+    public double getSuggestionSharpness() {
+        return values[SUGGESTION_SHARPNESS];
+    }
+
+    /**
+     * Reads the parameters from the file, or from the classpath resource of
+     * the same name when there is no such file, the defaults if neither is
+     * there.
+     */
+    public static StrategyParameters load(String path) {
+        File file = new File(path);
+        InputStream in = null;
+        try {
+            in = file.isFile() ? new FileInputStream(file) : StrategyParameters.class.getClassLoader().getResourceAsStream(path);
+            if (in == null) {
+                return DEFAULT;
+            }
+            Properties props = new Properties();
+            props.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            double[] values = DEFAULT.toArray();
+            for (int i = 0; i < KEYS.length; i++) {
+                String value = props.getProperty(KEYS[i]);
+                if (value != null) {
+                    values[i] = Double.parseDouble(value.trim());
+                }
+            }
+            return new StrategyParameters(values);
+        } catch (IOException | NumberFormatException e) {
+            //the tuner runs without an application to log to
+            if (Gdx.app != null) {
+                Gdx.app.error("strategy", "could not read " + path, e);
+            } else {
+                System.err.printf("could not read strategy %s: %s\n", path, e);
+            }
+            return DEFAULT;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    public void save(String path, String comment) throws IOException {
+        Properties props = new Properties();
+        for (int i = 0; i < KEYS.length; i++) {
+            props.setProperty(KEYS[i], Double.toString(values[i]));
+        }
+        try (OutputStream out = new FileOutputStream(path)) {
+            props.store(new OutputStreamWriter(out, StandardCharsets.UTF_8), comment);
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof StrategyParameters && Arrays.equals(values, ((StrategyParameters) obj).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < KEYS.length; i++) {
+            text.append(i == 0 ? "" : ", ").append(KEYS[i]).append('=').append(String.format("%.3f", values[i]));
+        }
+        return text.toString();
+    }
+
+}
@@ -0,0 +1,168 @@
+package gdx.clue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Genetic search over the {@link StrategyParameters}, run offline by
+ * {@link #main}. A candidate's fitness is its win rate in
+ * {@link HeadlessGame}s against tables of default players, with the
+ * candidate's seat and the number of players changing from game to game.
+ * Every candidate of a generation plays the same deals, so the differences
+ * between them are not drowned by the luck of the cards; the games run in
+ * parallel on all cores. The best elites carry over, the rest of the next
+ * generation is bred by tournament selection, uniform crossover and
+ * gaussian mutation within each parameter's range.
+ */
+public class StrategyTuner {
+
+    static final int TOURNAMENT = 3;
+    static final int ELITES = 2;
+    static final double MUTATION_RATE = 0.3;
+    static final double MUTATION_SCALE = 0.1;
+
+    private final Rules rules;
+    private final Board board;
+    private final HeadlessGame headless;
+    private final StrategyParameters opponent;
+    private final int games;
+
+    public StrategyTuner(Rules rules, Board board, StrategyParameters opponent, int games) {
+        this.rules = rules;
+        this.board = board;
+        this.headless = new HeadlessGame(rules, board);
+        this.opponent = opponent;
+        this.games = games;
+    }
+
+    /**
+     * Share of the games the candidate won, each game on its own stream
+     * off the seed. The headless games have no deadlines, so the result
+     * does not depend on scheduling.
+     */
+    public double evaluate(StrategyParameters candidate, long seed) {
+        int min = rules.getMinPlayers();
+        int max = Math.min(rules.getMaxPlayers(), board.getStartCount());
+        long wins = IntStream.range(0, games).parallel().filter(g -> {
+            GameRandom random = new GameRandom(seed + g * 0x9E3779B97F4A7C15L);
+            int players = min + random.nextInt(max - min + 1);
+            int seat = g % players;
+            StrategyParameters[] strategies = new StrategyParameters[players];
+            Arrays.fill(strategies, opponent);
+            strategies[seat] = candidate;
+            return headless.play(strategies, random) == seat;
+        }).count();
+        return (double) wins / games;
+    }
+
+    /**
+     * Evolves the population for the generations and returns the best
+     * candidate of the last one with its fitness.
+     */
+    public Scored evolve(int population, int generations, long seed) {
+        GameRandom random = new GameRandom(seed);
+        StrategyParameters[] candidates = new StrategyParameters[population];
+        candidates[0] = opponent;
+        for (int i = 1; i < population; i++) {
+            double[] values = new double[StrategyParameters.size()];
+            for (int k = 0; k < values.length; k++) {
+                values[k] = StrategyParameters.MIN[k] + random.nextDouble() * (StrategyParameters.MAX[k] - StrategyParameters.MIN[k]);
+            }
+            candidates[i] = new StrategyParameters(values);
+        }
+
+        Scored[] scored = null;
+        for (int generation = 0; generation < generations; generation++) {
+            long start = System.nanoTime();
+            long deals = random.nextLong();
+            scored = new Scored[population];
+            for (int i = 0; i < population; i++) {
+                scored[i] = new Scored(candidates[i], evaluate(candidates[i], deals));
+            }
+            Arrays.sort(scored, Comparator.comparingDouble((Scored s) -> s.fitness).reversed());
+            System.out.printf("generation %d best %.4f mean %.4f in %.1fs: %s\n", generation, scored[0].fitness,
+                    Arrays.stream(scored).mapToDouble(s -> s.fitness).average().orElse(0),
+                    (System.nanoTime() - start) / 1e9, scored[0].parameters);
+
+            if (generation == generations - 1) {
+                break;
+            }
+            for (int i = 0; i < population; i++) {
+                if (i < ELITES) {
+                    candidates[i] = scored[i].parameters;
+                    continue;
+                }
+                double[] a = select(scored, random).toArray();
+                double[] b = select(scored, random).toArray();
+                for (int k = 0; k < a.length; k++) {
+                    if (random.nextDouble() < 0.5) {
+                        a[k] = b[k];
+                    }
+                    if (random.nextDouble() < MUTATION_RATE) {
+                        a[k] += gaussian(random) * MUTATION_SCALE * (StrategyParameters.MAX[k] - StrategyParameters.MIN[k]);
+                    }
+                }
+                candidates[i] = new StrategyParameters(a);
+            }
+        }
+        return scored[0];
+    }
+
+    private static double gaussian(GameRandom random) {
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    private static StrategyParameters select(Scored[] scored, GameRandom random) {
+        Scored best = null;
+        for (int i = 0; i < TOURNAMENT; i++) {
+            Scored s = scored[random.nextInt(scored.length)];
+            if (best == null || s.fitness > best.fitness) {
+                best = s;
+            }
+        }
+        return best.parameters;
+    }
+
+    public static class Scored {
+
+        final StrategyParameters parameters;
+        final double fitness;
+
+        Scored(StrategyParameters parameters, double fitness) {
+            this.parameters = parameters;
+            this.fitness = fitness;
+        }
+
+        public StrategyParameters getParameters() {
+            return parameters;
+        }
+
+        public double getFitness() {
+            return fitness;
+        }
+    }
+
+    /**
+     * Tunes against the strategy in the file, by default the one in the
+     * resources, and writes the best found back to it.
+     *
+     * Arguments: file, generations, population, games per candidate, seed.
+     */
+    public static void main(String[] args) throws IOException {
+        String path = args.length > 0 ? args[0] : "src/main/resources/" + StrategyParameters.FILE;
+        int generations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int population = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int games = args.length > 3 ? Integer.parseInt(args[3]) : 2000;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 1L;
+
+        StrategyParameters opponent = StrategyParameters.load(path);
+        StrategyTuner tuner = new StrategyTuner(Rules.CLASSIC, Board.CLASSIC, opponent, games);
+        long start = System.nanoTime();
+        Scored best = tuner.evolve(population, generations, seed);
+        best.parameters.save(path, String.format("win rate %.4f over %d games against %s", best.fitness, games, opponent));
+        System.out.printf("strategy written to %s in %.1fs\n", path, (System.nanoTime() - start) / 1e9);
+    }
+
+}
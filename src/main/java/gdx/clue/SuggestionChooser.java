@@ -0,0 +1,152 @@
+package gdx.clue;
+
+import static gdx.clue.Card.TYPE_ROOM;
+import static gdx.clue.Card.TYPE_SUSPECT;
+import static gdx.clue.Card.TYPE_WEAPON;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Picks the suspect and weapon to suggest with the room a player is in, by
+ * how much the answer is expected to reduce the entropy of the envelope.
+ * The weighted deals kept by an {@link EnvelopeEstimate} stand in for the
+ * possible worlds: for each one the seats are asked in turn order and the
+ * first holder shows one of their matching cards at random. Every pair is
+ * scored as its own task on the pool, and pairs not started before the
+ * deadline are skipped.
+ */
+public class SuggestionChooser {
+
+    public static final long DEFAULT_BUDGET_NANOS = 10000000L;
+
+    private final ForkJoinPool pool;
+    private long budgetNanos = DEFAULT_BUDGET_NANOS;
+
+    public SuggestionChooser() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public SuggestionChooser(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public void setBudgetNanos(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * The suggestion with the highest expected information gain, null if
+     * the estimate kept no deals or nothing was scored in time.
+     */
+    public CardSet choose(EnvelopeEstimate estimate, int seat, int playerCount, Card room) {
+        Rules rules = estimate.getRules();
+        int deals = estimate.getDealCount();
+        if (deals == 0) {
+            return null;
+        }
+        long deadline = System.nanoTime() + budgetNanos;
+
+        //the envelope of every deal as one index over all triples
+        int weapons = rules.count(TYPE_WEAPON);
+        int rooms = rules.count(TYPE_ROOM);
+        int triples = rules.count(TYPE_SUSPECT) * weapons * rooms;
+        int[] envelopes = new int[deals];
+        for (int i = 0; i < deals; i++) {
+            byte[] deal = estimate.getDeal(i);
+            int[] value = new int[3];
+            for (int c = 0; c < deal.length; c++) {
+                if (deal[c] == EnvelopeEstimate.ENVELOPE) {
+                    Card card = rules.card(c);
+                    value[card.getType()] = card.getValue();
+                }
+            }
+            envelopes[i] = (value[TYPE_SUSPECT] * weapons + value[TYPE_WEAPON]) * rooms + value[TYPE_ROOM];
+        }
+
+        List<Callable<Double>> tasks = new ArrayList<>();
+        long[] suggestions = new long[rules.count(TYPE_SUSPECT) * weapons];
+        for (int s = 0; s < rules.count(TYPE_SUSPECT); s++) {
+            for (int w = 0; w < weapons; w++) {
+                int[] ordinals = {rules.ordinal(TYPE_SUSPECT, s), rules.ordinal(TYPE_WEAPON, w), room.ordinal()};
+                suggestions[tasks.size()] = (1L << ordinals[0]) | (1L << ordinals[1]) | (1L << ordinals[2]);
+                tasks.add(() -> System.nanoTime() > deadline
+                        ? Double.NaN
+                        : expectedEntropy(estimate, envelopes, triples, seat, playerCount, ordinals));
+            }
+        }
+
+        long best = 0L;
+        double bestEntropy = Double.MAX_VALUE;
+        List<Future<Double>> results = pool.invokeAll(tasks);
+        for (int i = 0; i < results.size(); i++) {
+            double h;
+            try {
+                h = results.get(i).get();
+            } catch (InterruptedException | ExecutionException e) {
+                continue;
+            }
+            if (!Double.isNaN(h) && h < bestEntropy) {
+                bestEntropy = h;
+                best = suggestions[i];
+            }
+        }
+        return best == 0L ? null : CardSet.fromBits(rules, best);
+    }
+
+    /**
+     * Entropy in bits of the envelope left after hearing the answer to the
+     * suggestion, averaged over the answers.
+     */
+    static double expectedEntropy(EnvelopeEstimate estimate, int[] envelopes, int triples, int seat, int playerCount, int[] ordinals) {
+        //answers are a seat showing one of the three cards, or nobody
+        int answers = playerCount * 3 + 1;
+        double[] table = new double[answers * triples];
+        double[] answerWeight = new double[answers];
+        double total = 0;
+
+        for (int i = 0; i < estimate.getDealCount(); i++) {
+            byte[] deal = estimate.getDeal(i);
+            double w = estimate.getWeight(i);
+            total += w;
+            int answer = answers - 1;
+            int held = 0;
+            int s = (seat + 1) % playerCount;
+            for (; s != seat; s = (s + 1) % playerCount) {
+                held = (deal[ordinals[0]] == s ? 1 : 0) + (deal[ordinals[1]] == s ? 1 : 0) + (deal[ordinals[2]] == s ? 1 : 0);
+                if (held > 0) {
+                    break;
+                }
+            }
+            if (held == 0) {
+                table[answer * triples + envelopes[i]] += w;
+                answerWeight[answer] += w;
+                continue;
+            }
+            for (int k = 0; k < 3; k++) {
+                if (deal[ordinals[k]] == s) {
+                    answer = s * 3 + k;
+                    table[answer * triples + envelopes[i]] += w / held;
+                    answerWeight[answer] += w / held;
+                }
+            }
+        }
+
+        double entropy = 0;
+        for (int a = 0; a < answers; a++) {
+            if (answerWeight[a] <= 0) {
+                continue;
+            }
+            for (int t = a * triples; t < (a + 1) * triples; t++) {
+                if (table[t] > 0) {
+                    entropy += table[t] * Math.log(answerWeight[a] / table[t]);
+                }
+            }
+        }
+        return entropy / total / Math.log(2);
+    }
+
+}
@@ -43,6 +43,9 @@ public class SuggestionDialog extends Window {
         super("Suggest a Murder Committed in the " + roomCard, ClueMain.skin.get("dialog", Window.WindowStyle.class));
         this.screen = screen;
 
+        Rules rules = screen.getGame().getRules();
+        NotebookView notes = player.getNotebook();
+
         setSkin(ClueMain.skin);
         setModal(true);
         defaults().pad(5);
@@ -72,9 +75,9 @@ public class SuggestionDialog extends Window {
 
         table.add(new Label("Pick the Suspect", ClueMain.skin, "default-yellow"));
         table.row();
-        for (int i = 0; i < NUM_SUSPECTS; i++) {
-            Card card = new Card(TYPE_SUSPECT, i);
-            CardCheckBox cb = new CardCheckBox(card, player.isCardInHand(card), player.getNotebook().isCardToggled(card));
+        for (int i = 0; i < rules.count(TYPE_SUSPECT); i++) {
+            Card card = rules.card(TYPE_SUSPECT, i);
+            CardCheckBox cb = new CardCheckBox(card, player.isCardInHand(card), notes.isCardToggled(card));
             checkBoxes.add(cb);
             buttonGroup1.add(cb);
             table.add(cb);
@@ -89,9 +92,9 @@ public class SuggestionDialog extends Window {
 
         table.add(new Label("Pick the Weapon", ClueMain.skin, "default-yellow"));
         table.row();
-        for (int i = 0; i < NUM_WEAPONS; i++) {
-            Card card = new Card(TYPE_WEAPON, i);
-            CardCheckBox cb = new CardCheckBox(card, player.isCardInHand(card), player.getNotebook().isCardToggled(card));
+        for (int i = 0; i < rules.count(TYPE_WEAPON); i++) {
+            Card card = rules.card(TYPE_WEAPON, i);
+            CardCheckBox cb = new CardCheckBox(card, player.isCardInHand(card), notes.isCardToggled(card));
             checkBoxes.add(cb);
             buttonGroup2.add(cb);
             table.add(cb);
@@ -0,0 +1,99 @@
+package gdx.clue;
+
+import java.util.Arrays;
+
+/**
+ * Every suggestion of a game with who could not disprove it, who did and
+ * the card that was shown. Kept as parallel primitive arrays indexed by the
+ * order the suggestions were made.
+ */
+public class SuggestionHistory {
+
+    private int[] suggesters = new int[32];
+    private long[] cards = new long[32];
+    private long[] passes = new long[32];
+    private int[] disprovers = new int[32];
+    private int[] shown = new int[32];
+    private int size;
+
+    /**
+     * Starts a new suggestion, the following calls refer to it.
+     */
+    public void suggest(int seat, long suggestion) {
+        if (size == suggesters.length) {
+            suggesters = Arrays.copyOf(suggesters, size * 2);
+            cards = Arrays.copyOf(cards, size * 2);
+            passes = Arrays.copyOf(passes, size * 2);
+            disprovers = Arrays.copyOf(disprovers, size * 2);
+            shown = Arrays.copyOf(shown, size * 2);
+        }
+        suggesters[size] = seat;
+        cards[size] = suggestion;
+        passes[size] = 0L;
+        disprovers[size] = -1;
+        shown[size] = -1;
+        size++;
+    }
+
+    public void pass(int seat) {
+        passes[size - 1] |= 1L << seat;
+    }
+
+    public void show(int seat, int ordinal) {
+        disprovers[size - 1] = seat;
+        shown[size - 1] = ordinal;
+    }
+
+    /**
+     * A copy that later suggestions do not change.
+     */
+    public SuggestionHistory copy() {
+        SuggestionHistory copy = new SuggestionHistory();
+        copy.suggesters = suggesters.clone();
+        copy.cards = cards.clone();
+        copy.passes = passes.clone();
+        copy.disprovers = disprovers.clone();
+        copy.shown = shown.clone();
+        copy.size = size;
+        return copy;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getSuggester(int i) {
+        return suggesters[i];
+    }
+
+    public long getCards(int i) {
+        return cards[i];
+    }
+
+    /**
+     * Mask of the seats that could not disprove.
+     */
+    public long getPasses(int i) {
+        return passes[i];
+    }
+
+    /**
+     * The seat that showed a card, -1 if nobody could.
+     */
+    public int getDisprover(int i) {
+        return disprovers[i];
+    }
+
+    /**
+     * Ordinal of the card shown, only known to the suggester and the
+     * disprover.
+     */
+    public int getShown(int i) {
+        return shown[i];
+    }
+
+}
@@ -0,0 +1,145 @@
+package gdx.clue;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed size cache of decisions keyed by {@link Zobrist} hashes, shared by
+ * any number of threads without locks. Every slot is two longs, the packed
+ * entry and the key xor the entry, so an entry torn by a racing write no
+ * longer matches its key and reads as a miss.
+ *
+ * Slots come in buckets of two. A store takes the slot already holding the
+ * key, otherwise the one from the oldest age, and of the same age the one
+ * with the lower depth. Depth is how much work went into the entry, the age
+ * is advanced by the owner, typically once per turn.
+ */
+public class TranspositionTable {
+
+    public static final long MISS = -1L;
+    public static final int DEFAULT_BUCKETS_LOG2 = 15;
+
+    private static final long VALID = 1L << 63;
+
+    private final AtomicLongArray keys;
+    private final AtomicLongArray entries;
+    private final int mask;
+    private volatile int age;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder replaced = new LongAdder();
+
+    public TranspositionTable() {
+        this(DEFAULT_BUCKETS_LOG2);
+    }
+
+    public TranspositionTable(int bucketsLog2) {
+        int slots = 2 << bucketsLog2;
+        this.keys = new AtomicLongArray(slots);
+        this.entries = new AtomicLongArray(slots);
+        this.mask = (1 << bucketsLog2) - 1;
+    }
+
+    /**
+     * Starts a new age, entries from earlier ages are replaced first.
+     */
+    public void nextAge() {
+        age = (age + 1) & 0x7fff;
+    }
+
+    /**
+     * The stored payload for the key, {@link #MISS} if there is none.
+     */
+    public long probe(long key) {
+        probes.increment();
+        int slot = (int) key & mask;
+        for (int i = slot * 2; i < slot * 2 + 2; i++) {
+            long entry = entries.get(i);
+            if ((entry & VALID) != 0L && (keys.get(i) ^ entry) == key) {
+                hits.increment();
+                return entry & 0xffffffffL;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * Stores the payload unless the bucket only holds entries of this age
+     * with more depth.
+     */
+    public void store(long key, int depth, int payload) {
+        long entry = VALID | ((long) age << 40) | ((long) Math.min(depth, 0xff) << 32) | (payload & 0xffffffffL);
+        int slot = (int) key & mask;
+        int victim = -1;
+        long victimEntry = 0L;
+        for (int i = slot * 2; i < slot * 2 + 2; i++) {
+            long current = entries.get(i);
+            if ((current & VALID) == 0L || (keys.get(i) ^ current) == key) {
+                victim = i;
+                victimEntry = current;
+                break;
+            }
+            if (victim == -1 || worse(current, victimEntry)) {
+                victim = i;
+                victimEntry = current;
+            }
+        }
+        if ((victimEntry & VALID) != 0L && (keys.get(victim) ^ victimEntry) != key) {
+            if (age(victimEntry) == age && depth(victimEntry) > depth) {
+                return;
+            }
+            replaced.increment();
+        }
+        stores.increment();
+        entries.set(victim, entry);
+        keys.set(victim, key ^ entry);
+    }
+
+    private boolean worse(long a, long b) {
+        int ageA = (age - age(a)) & 0x7fff;
+        int ageB = (age - age(b)) & 0x7fff;
+        return ageA != ageB ? ageA > ageB : depth(a) < depth(b);
+    }
+
+    private static int age(long entry) {
+        return (int) (entry >>> 40) & 0x7fff;
+    }
+
+    private static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xff;
+    }
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    /**
+     * Stores that pushed out an entry for another key.
+     */
+    public long getReplaced() {
+        return replaced.sum();
+    }
+
+    public double getHitRate() {
+        long p = probes.sum();
+        return p == 0 ? 0 : (double) hits.sum() / p;
+    }
+
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.set(i, 0L);
+            keys.set(i, 0L);
+        }
+    }
+
+}
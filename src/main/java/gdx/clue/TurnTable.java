@@ -0,0 +1,210 @@
+package gdx.clue;
+
+import static gdx.clue.Card.TYPE_ROOM;
+import gdx.clue.astar.Location;
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Expected number of turns from every tile to each room when moving with
+ * two six sided dice, taking the secret passages where they help. Computed
+ * once per board by value iteration: a turn from a tile ends on the best
+ * tile within the rolled number of steps, a turn from a room leaves by its
+ * best door or takes its passage. Door tiles count as being in their room.
+ *
+ * Kept as fixed point hundredths of a turn in one short array, indexed by
+ * room then tile.
+ */
+public class TurnTable {
+
+    public static final TurnTable CLASSIC = new TurnTable(Board.CLASSIC);
+
+    private static final int MAX_ROLL = 12;
+    private static final double SCALE = 100.0;
+
+    private final Board board;
+    private final int tiles;
+    private final short[] turns;
+
+    /**
+     * The shared table for the classic board, a new one for any other.
+     */
+    public static TurnTable forBoard(Board board) {
+        return board == Board.CLASSIC ? CLASSIC : new TurnTable(board);
+    }
+
+    public TurnTable(Board board) {
+        this.board = board;
+        this.tiles = board.getTileCount();
+        int rooms = board.getRoomCount();
+        this.turns = new short[rooms * tiles];
+
+        double[] roll = new double[MAX_ROLL + 1];
+        for (int a = 1; a <= 6; a++) {
+            for (int b = 1; b <= 6; b++) {
+                roll[a + b] += 1.0 / 36;
+            }
+        }
+
+        int[][] neighbors = new int[tiles][];
+        int[] roomOf = new int[tiles];
+        for (int t = 0; t < tiles; t++) {
+            Location l = board.getLocation(t);
+            roomOf[t] = l.getRoomId();
+            int n = 0;
+            for (Location ignored : l.neighbors()) {
+                n++;
+            }
+            neighbors[t] = new int[n];
+            n = 0;
+            for (Location nb : l.neighbors()) {
+                neighbors[t][n++] = board.index(nb);
+            }
+        }
+
+        for (int room = 0; room < rooms; room++) {
+            double[] v = iterate(room, roll, neighbors, roomOf);
+            for (int t = 0; t < tiles; t++) {
+                double scaled = Math.rint(v[t] * SCALE);
+                turns[room * tiles + t] = (short) Math.min(Short.MAX_VALUE, scaled);
+            }
+        }
+    }
+
+    private double[] iterate(int room, double[] roll, int[][] neighbors, int[] roomOf) {
+        int rooms = board.getRoomCount();
+        double[] roomValue = new double[rooms];
+        double[] v = new double[tiles];
+        for (int t = 0; t < tiles; t++) {
+            int steps = board.getSteps(t, room);
+            v[t] = steps == Integer.MAX_VALUE ? Double.POSITIVE_INFINITY : steps / 7.0;
+        }
+        for (int a = 0; a < rooms; a++) {
+            roomValue[a] = a == room ? 0 : board.getRoomSteps(a, room) / 7.0;
+        }
+
+        //best value within k steps, for every k up to the largest roll
+        double[][] within = new double[MAX_ROLL + 1][tiles];
+        double[] expected = new double[tiles];
+        double[] roomExpected = new double[rooms];
+
+        for (int iteration = 0; iteration < 500; iteration++) {
+            for (int t = 0; t < tiles; t++) {
+                within[0][t] = roomOf[t] == -1 ? v[t] : roomValue[roomOf[t]];
+            }
+            for (int k = 1; k <= MAX_ROLL; k++) {
+                for (int t = 0; t < tiles; t++) {
+                    double best = within[k - 1][t];
+                    for (int n : neighbors[t]) {
+                        best = Math.min(best, within[k - 1][n]);
+                    }
+                    within[k][t] = best;
+                }
+            }
+
+            Arrays.fill(expected, 0);
+            for (int k = 2; k <= MAX_ROLL; k++) {
+                for (int t = 0; t < tiles; t++) {
+                    expected[t] += roll[k] * within[k][t];
+                }
+            }
+
+            Arrays.fill(roomExpected, 0);
+            for (int k = 2; k <= MAX_ROLL; k++) {
+                for (int a = 0; a < rooms; a++) {
+                    double best = Double.POSITIVE_INFINITY;
+                    for (Location door : board.getAllDoorLocationsForRoom(a)) {
+                        best = Math.min(best, within[k][board.index(door)]);
+                    }
+                    roomExpected[a] += roll[k] * best;
+                }
+            }
+
+            double change = 0;
+            for (int t = 0; t < tiles; t++) {
+                if (roomOf[t] == -1 && v[t] != Double.POSITIVE_INFINITY && neighbors[t].length > 0) {
+                    double next = 1 + expected[t];
+                    change = Math.max(change, Math.abs(next - v[t]));
+                    v[t] = next;
+                }
+            }
+            for (int a = 0; a < rooms; a++) {
+                if (a == room) {
+                    continue;
+                }
+                double next = 1 + roomExpected[a];
+                int passage = board.getPassage(a);
+                if (passage != -1) {
+                    next = Math.min(next, 1 + roomValue[passage]);
+                }
+                change = Math.max(change, Math.abs(next - roomValue[a]));
+                roomValue[a] = next;
+            }
+
+            if (change < 1e-6) {
+                break;
+            }
+        }
+
+        for (int t = 0; t < tiles; t++) {
+            if (roomOf[t] != -1) {
+                v[t] = roomValue[roomOf[t]];
+            }
+        }
+        return v;
+    }
+
+    /**
+     * Expected turns from the tile to the room, 0 on the room's own doors.
+     */
+    public double getTurns(int tileIndex, int room) {
+        return turns[room * tiles + tileIndex] / SCALE;
+    }
+
+    public double getTurns(Location from, int room) {
+        return getTurns(board.index(from), room);
+    }
+
+    /**
+     * Expected turns between rooms, passages included.
+     */
+    public double getRoomTurns(int fromRoom, int toRoom) {
+        return getTurns(board.getRoomLocation(fromRoom), toRoom);
+    }
+
+    /**
+     * The open room, of a mask of room card ordinals, with the fewest
+     * expected turns from the room or, when not in one, from the tile, plus
+     * the adjustment for the room's ordinal. The room the player is in does
+     * not count; once no room is open any other is picked at random.
+     */
+    public int nearestRoom(Rules rules, long open, int room, int tile, IntToDoubleFunction adjustment, GameRandom random) {
+        if (room != -1) {
+            open &= ~(1L << rules.ordinal(TYPE_ROOM, room));
+        }
+        if (open == 0L) {
+            if (room == -1) {
+                return random.nextInt(board.getRoomCount());
+            }
+            int r = random.nextInt(board.getRoomCount() - 1);
+            return r >= room ? r + 1 : r;
+        }
+        int best = -1;
+        double closest = Double.MAX_VALUE;
+        for (long bits = open; bits != 0L; bits &= bits - 1) {
+            int ordinal = Long.numberOfTrailingZeros(bits);
+            int target = rules.card(ordinal).getValue();
+            double expected = (room != -1 ? getRoomTurns(room, target) : getTurns(tile, target)) + adjustment.applyAsDouble(ordinal);
+            if (expected < closest) {
+                closest = expected;
+                best = target;
+            }
+        }
+        return best;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+}
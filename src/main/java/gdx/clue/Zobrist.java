@@ -0,0 +1,72 @@
+package gdx.clue;
+
+import gdx.clue.astar.Location;
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist keys for what a computer player decides from: whose turn it is,
+ * where everybody stands, the player's notebook marks and what the
+ * suggestions taught them, the last kept up to date by a
+ * {@link KnowledgeHash}. Equal hashes mean the same knowledge in the same
+ * position, so a decision made once can be looked up in a
+ * {@link TranspositionTable}. The keys come from a fixed seed, hashes are
+ * comparable across games and runs.
+ */
+public class Zobrist {
+
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+
+    private final Board board;
+    private final long[] turn;
+    private final long[] positions;
+    private final long[] inHand;
+    private final long[] toggled;
+
+    public Zobrist(Rules rules, Board board) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        this.board = board;
+        int seats = rules.getMaxPlayers();
+        this.turn = keys(random, seats);
+        this.positions = keys(random, seats * board.getTileCount());
+        this.inHand = keys(random, rules.total());
+        this.toggled = keys(random, rules.total());
+    }
+
+    static long[] keys(SplittableRandom random, int n) {
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = random.nextLong();
+        }
+        return keys;
+    }
+
+    /**
+     * The hash of the observer's situation, with the knowledge hash of
+     * their notebook.
+     */
+    public long hash(int observer, Location[] positionsBySeat, long hand, long marks, long knowledge) {
+        long h = turn[observer];
+        int tiles = board.getTileCount();
+        for (int seat = 0; seat < positionsBySeat.length; seat++) {
+            h ^= positions[seat * tiles + board.index(positionsBySeat[seat])];
+        }
+        h ^= fold(inHand, 0, hand);
+        h ^= fold(toggled, 0, marks);
+        return h ^ knowledge;
+    }
+
+    static long fold(long[] keys, int offset, long bits) {
+        long h = 0L;
+        for (; bits != 0L; bits &= bits - 1) {
+            h ^= keys[offset + Long.numberOfTrailingZeros(bits)];
+        }
+        return h;
+    }
+
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+}
@@ -50,6 +50,10 @@ public class AStar<T extends Node<T>> extends AbstractPathFinder<T> {
     }
 
     public List<T> findPath(Collection<T> graph, T start, Collection<T> goals) {
+        return findPath(graph, start, goals, null);
+    }
+
+    public List<T> findPath(Collection<T> graph, T start, Collection<T> goals, PathContext<T> context) {
         canceled = false;
         Map<T, State> open = new HashMap<T, State>();
         Map<T, State> closed = new HashMap<T, State>();
@@ -70,7 +74,8 @@ public class AStar<T extends Node<T>> extends AbstractPathFinder<T> {
                 return state.makePath();
             } else {
                 for (T newNode : state.node.neighbors()) {
-                    double newCost = state.costFromStart + state.node.traverseCost(newNode);
+                    double step = context != null ? context.traverseCost(state.node, newNode) : state.node.traverseCost(newNode);
+                    double newCost = state.costFromStart + step;
                     State openNode = open.get(newNode);
                     if (openNode != null && openNode.costFromStart <= newCost) {
                         continue;
@@ -1,18 +1,18 @@
 package gdx.clue.astar;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class Location implements Node<Location> {
 
     private final int x;
     private final int y;
-    private int height;
     private boolean blocked;
-    private boolean highlight;
     private boolean isRoom;
     private int roomId = -1;
     private final List<Location> neighbors;
+    private List<Location> realNeighbors;
 
     public Location(int x, int y) {
         this.x = x;
@@ -44,6 +44,7 @@ public class Location implements Node<Location> {
     }
 
     public void setBlocked(boolean blocked) {
+        checkNotLocked();
         this.blocked = blocked;
     }
 
@@ -51,15 +52,8 @@ public class Location implements Node<Location> {
         return blocked;
     }
 
-    public void setHighlighted(boolean highlight) {
-        this.highlight = highlight;
-    }
-
-    public boolean getHighlighted() {
-        return highlight;
-    }
-
     public void setIsRoom(boolean isRoom) {
+        checkNotLocked();
         this.isRoom = isRoom;
     }
 
@@ -68,6 +62,7 @@ public class Location implements Node<Location> {
     }
 
     public void setRoomId(int id) {
+        checkNotLocked();
         this.roomId = id;
     }
 
@@ -75,14 +70,6 @@ public class Location implements Node<Location> {
         return roomId;
     }
 
-    public int getHeight() {
-        return height;
-    }
-
-    public void setHeight(int height) {
-        this.height = height;
-    }
-
     public double getDistance(Location dest) {
         double a = dest.x - x;
         double b = dest.y - y;
@@ -96,33 +83,59 @@ public class Location implements Node<Location> {
     
     @Override
     public double traverseCost(Location target) {
-        double distance = getDistance(target);
-        double diff = target.getHeight() - getHeight();
-        return Math.abs(diff) + distance;
+        return getDistance(target);
     }
     
     @Override
     public Iterable<Location> neighbors() {
-        List<Location> realNeighbors = new ArrayList<>();
+        if (realNeighbors != null) {
+            return realNeighbors;
+        }
+        return computeNeighbors();
+    }
+
+    private List<Location> computeNeighbors() {
+        List<Location> result = new ArrayList<>();
         if (!blocked) {
             for (Location loc : neighbors) {
                 if (!loc.blocked) {
-                    realNeighbors.add(loc);
+                    result.add(loc);
                 }
             }
         }
 
-        return realNeighbors;
+        return result;
     }
 
     public void addNeighbor(Location l) {
+        checkNotLocked();
         neighbors.add(l);
     }
 
     public void removeNeighbor(Location l) {
+        checkNotLocked();
         neighbors.remove(l);
     }
 
+    /**
+     * Freezes this location once the board is built. The walkable neighbors
+     * are computed once and the location may then be shared between threads.
+     * Must be called after all neighboring locations are set up.
+     */
+    public void lock() {
+        realNeighbors = Collections.unmodifiableList(computeNeighbors());
+    }
+
+    public boolean isLocked() {
+        return realNeighbors != null;
+    }
+
+    private void checkNotLocked() {
+        if (realNeighbors != null) {
+            throw new IllegalStateException("location is locked: " + this);
+        }
+    }
+
     @Override
     public String toString() {
         return "Location [" + x + "][" + y + "]";
@@ -0,0 +1,80 @@
+package gdx.clue.astar;
+
+/**
+ * Bitset of the board tiles that currently hold a player. The board graph
+ * itself is never modified, path searches consult this layer through the
+ * {@link PathContext} instead.
+ */
+public class Occupancy implements PathContext<Location> {
+
+    //same penalty the old 100 vs 1000 tile heights produced
+    public static final double OCCUPIED_COST = 900;
+
+    private final int ysize;
+    private final long[] bits;
+
+    public Occupancy(int xsize, int ysize) {
+        this.ysize = ysize;
+        this.bits = new long[(xsize * ysize + 63) >>> 6];
+    }
+
+    private Occupancy(Occupancy other) {
+        this.ysize = other.ysize;
+        this.bits = other.bits.clone();
+    }
+
+    /**
+     * A copy that later moves do not change, for path searches off the
+     * render thread.
+     */
+    public Occupancy copy() {
+        return new Occupancy(this);
+    }
+
+    private int index(Location location) {
+        return location.getX() * ysize + location.getY();
+    }
+
+    public boolean isOccupied(Location location) {
+        int i = index(location);
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    public void setOccupied(Location location, boolean occupied) {
+        int i = index(location);
+        if (occupied) {
+            bits[i >>> 6] |= 1L << i;
+        } else {
+            bits[i >>> 6] &= ~(1L << i);
+        }
+    }
+
+    /**
+     * Moves a player token. Multiple players may share a room tile, so only
+     * regular tiles are marked as occupied.
+     */
+    public void move(Location from, Location to) {
+        if (from != null) {
+            setOccupied(from, false);
+        }
+        if (to != null && !to.isRoom()) {
+            setOccupied(to, true);
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = 0;
+        }
+    }
+
+    @Override
+    public double traverseCost(Location from, Location to) {
+        double cost = from.traverseCost(to);
+        if (isOccupied(from) != isOccupied(to)) {
+            cost += OCCUPIED_COST;
+        }
+        return cost;
+    }
+
+}
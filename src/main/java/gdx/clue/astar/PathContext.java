@@ -0,0 +1,22 @@
+package gdx.clue.astar;
+
+/**
+ * Per query state consulted by a {@link PathFinder} while it walks the graph.
+ * Lets transient conditions such as occupied tiles influence a search without
+ * mutating the shared {@link Node}s.
+ *
+ * @param <T>
+ */
+public interface PathContext<T extends Node> {
+
+    /**
+     * Returns the cost to get from one node to an adjacent node in this
+     * context.
+     *
+     * @param from the node being left
+     * @param to the node being entered
+     * @return the cost
+     */
+    double traverseCost(T from, T to);
+
+}
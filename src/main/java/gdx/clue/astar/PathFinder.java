@@ -30,6 +30,20 @@ public interface PathFinder<T extends Node> {
      */
     List<T> findPath(Collection<T> graph, T start, Collection<T> goals);
 
+    /**
+     * Find a path between the start and the goal {@link Node}s, taking the
+     * traversal costs from the given context rather than the nodes alone.
+     *
+     * @param graph the graph
+     * @param start the starting @{link Node}
+     * @param goals the goal @{link Node}s
+     * @param context the per query state, or <tt>null</tt> to use
+     * {@link Node#traverseCost}
+     * @return a {@link java.util.List} of {@link Node} elements or
+     * <tt>null</tt> if no path was found.
+     */
+    List<T> findPath(Collection<T> graph, T start, Collection<T> goals, PathContext<T> context);
+
     /**
      * Add a listener for {@link PathEvent}s.
      *